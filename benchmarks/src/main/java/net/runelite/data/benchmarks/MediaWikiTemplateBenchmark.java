@@ -0,0 +1,124 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.benchmarks;
+
+import com.google.common.io.Resources;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import net.runelite.data.dump.MediaWikiTemplate;
+import net.runelite.data.dump.WikiPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the template parsers over real sized pages. Build with `mvn package` (after installing the main
+ * project) and run `java -jar target/benchmarks.jar MediaWikiTemplateBenchmark -prof gc` to also see allocation rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MediaWikiTemplateBenchmark
+{
+	/**
+	 * Npc page with a switch infobox of a dozen monster variants, drop and location tables
+	 */
+	private String switchInfoboxPage;
+
+	/**
+	 * Item page with version1..N infobox and bonuses
+	 */
+	private String multiVersionItemPage;
+
+	/**
+	 * Module:Exchange Lua table
+	 */
+	private String exchangeModule;
+
+	@Setup
+	public void setup() throws IOException
+	{
+		switchInfoboxPage = read("switch_infobox_monster.wiki");
+		multiVersionItemPage = read("multi_version_item.wiki");
+		exchangeModule = read("exchange.lua");
+	}
+
+	@Benchmark
+	public MediaWikiTemplate parseSwitchInfobox()
+	{
+		return MediaWikiTemplate.parseWikitext("Switch infobox", switchInfoboxPage);
+	}
+
+	@Benchmark
+	public MediaWikiTemplate parseMonsterInfobox()
+	{
+		return MediaWikiTemplate.parseWikitext("Infobox Monster", switchInfoboxPage);
+	}
+
+	@Benchmark
+	public WikiPage parseSwitchInfoboxPage()
+	{
+		return WikiPage.parse(switchInfoboxPage);
+	}
+
+	@Benchmark
+	public MediaWikiTemplate parseItemInfobox()
+	{
+		return MediaWikiTemplate.parseWikitext("Infobox Item", multiVersionItemPage);
+	}
+
+	@Benchmark
+	public MediaWikiTemplate parseBonusesInfobox()
+	{
+		return MediaWikiTemplate.parseWikitext("Infobox Bonuses", multiVersionItemPage);
+	}
+
+	@Benchmark
+	public WikiPage parseItemPage()
+	{
+		return WikiPage.parse(multiVersionItemPage);
+	}
+
+	@Benchmark
+	public MediaWikiTemplate parseExchangeModule()
+	{
+		return MediaWikiTemplate.parseLua(exchangeModule);
+	}
+
+	private static String read(final String name) throws IOException
+	{
+		return Resources.toString(Resources.getResource(MediaWikiTemplateBenchmark.class, "/corpus/" + name), StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,14 @@
+return {
+    itemId     = 13652,
+    price      = 83173735,
+    last       = 83533604,
+    date       = '12:18, November 08, 2018 (UTC)',
+    lastDate   = '05:43, November 08, 2018 (UTC)',
+    icon       = 'Dragon claws.png',
+    item       = 'Dragon claws',
+    value      = 205000,
+    limit      = 8,
+    members    = true,
+    category   = nil,
+    examine    = 'A set of fighting claws.'
+}
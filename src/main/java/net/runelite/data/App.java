@@ -27,12 +27,22 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import lombok.extern.slf4j.Slf4j;
 import net.runelite.cache.fs.Store;
+import net.runelite.data.dump.DumpContext;
+import net.runelite.data.dump.DumpOptions;
+import net.runelite.data.dump.DumpPipeline;
+import net.runelite.data.dump.DumpProgress;
 import net.runelite.data.dump.MediaWiki;
+import net.runelite.data.dump.WikiSource;
+import net.runelite.data.dump.XmlDumpSource;
 import net.runelite.data.dump.wiki.ItemLimitsDumper;
 import net.runelite.data.dump.wiki.ItemStatsDumper;
 import net.runelite.data.dump.wiki.NpcStatsDumper;
 
+@Slf4j
 public class App
 {
 	public static final Gson GSON = new GsonBuilder()
@@ -47,12 +57,76 @@ public class App
 			"jagexcache" + File.separator + "oldschool" + File.separator + "LIVE"));
 		cacheStore.load();
 
-		// Try to make this go faster (probably not very smart)
-		System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", "100");
+		// Pages are read from a local XML export when given, otherwise fetched from the wiki
+		final String wikiDump = Arrays.stream(args)
+			.filter(arg -> arg.startsWith("--wiki-dump="))
+			.map(arg -> arg.substring("--wiki-dump=".length()))
+			.findFirst()
+			.orElse(null);
+		final WikiSource wiki;
 
-		final MediaWiki wiki = new MediaWiki("https://oldschool.runescape.wiki");
-		ItemLimitsDumper.dump(cacheStore, wiki);
-		ItemStatsDumper.dump(cacheStore, wiki);
-		NpcStatsDumper.dump(cacheStore, wiki);
+		if (wikiDump != null)
+		{
+			wiki = XmlDumpSource.load(new File(wikiDump),
+				Arrays.asList("Infobox Item", "Infobox Bonuses", "Infobox Monster"),
+				Collections.singletonList("Module:Exchange/"));
+		}
+		else
+		{
+			// Keep fetched pages between runs so only pages edited since the last run are downloaded again
+			final File wikiCache = new File(home, ".osrs-data" + File.separator + "wiki");
+			wiki = MediaWiki.builder()
+				.base("https://oldschool.runescape.wiki")
+				.cacheDirectory(wikiCache)
+				.maxRequests(32)
+				.maxRequestsPerHost(16)
+				.requestsPerSecond(50)
+				.build();
+		}
+
+		// Every dumped, skipped and failed id can be traced to a file, written by the progress reporter thread
+		final String trace = Arrays.stream(args)
+			.filter(arg -> arg.startsWith("--trace="))
+			.map(arg -> arg.substring("--trace=".length()))
+			.findFirst()
+			.orElse(null);
+
+		// Binary tables are written next to the JSON resources for consumers that memory map them
+		final DumpOptions options = DumpOptions.builder()
+			.binary(Arrays.asList(args).contains("--binary"))
+			.incremental(Arrays.asList(args).contains("--incremental"))
+			.manifestDirectory(new File(home, ".osrs-data" + File.separator + "manifest"))
+			.journalDirectory(new File(home, ".osrs-data" + File.separator + "journal"))
+			.progress(new DumpProgress(trace == null ? null : new File(trace)))
+			.build();
+
+		// Definitions are decoded once and shared by all dumpers
+		final DumpContext context = DumpContext.load(cacheStore);
+
+		// Dumpers run concurrently and share the wiki client, so pages are fetched as fast as the wiki allows
+		try
+		{
+			new DumpPipeline()
+				.add("item limits", ItemLimitsDumper::dump)
+				.add("item stats", ItemStatsDumper::dump)
+				.add("npc stats", NpcStatsDumper::dump)
+				.run(context, wiki, options);
+		}
+		finally
+		{
+			// Summary of the run is kept for failed runs too, they are the interesting ones
+			// Failing to write them must not hide the failure of the dump itself
+			final File metricsDirectory = new File(home, ".osrs-data" + File.separator + "metrics");
+
+			try
+			{
+				options.getMetrics().write(new File(metricsDirectory, "metrics.json"));
+				options.getMetrics().write(new File(metricsDirectory, "metrics.prom"));
+			}
+			catch (IOException e)
+			{
+				log.warn("Failed to write metrics to {}", metricsDirectory, e);
+			}
+		}
 	}
 }
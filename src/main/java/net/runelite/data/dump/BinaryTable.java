@@ -0,0 +1,286 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Read only view of a table written by {@link BinaryTableWriter}. The file is memory mapped and values are read
+ * directly from it, so opening the table only reads the header.
+ *
+ * <p>Layout, all numbers big endian:
+ * <pre>
+ * int magic, int version, int rows, int columns
+ * columns * (byte type, short name length, UTF-8 name)
+ * rows * int id, sorted
+ * columns * (presence bitmap, values), each value has fixed width
+ * int string data length, UTF-8 string data
+ * </pre>
+ * Bitmaps have one bit per row, bit {@code row % 8} of byte {@code row / 8}.
+ */
+public class BinaryTable
+{
+	static final int MAGIC = 0x4F535254;
+	static final int VERSION = 1;
+
+	@RequiredArgsConstructor
+	public enum ColumnType
+	{
+		INT(4),
+		/**
+		 * Values are stored as bitmap, width is 0
+		 */
+		BOOLEAN(0),
+		DOUBLE(8),
+		/**
+		 * Offset and length of UTF-8 bytes in string data
+		 */
+		STRING(8);
+
+		private final int width;
+
+		int size(final int rows)
+		{
+			return this == BOOLEAN ? bitmapSize(rows) : width * rows;
+		}
+	}
+
+	private final ByteBuffer buffer;
+
+	@Getter
+	private final int rowCount;
+	private final String[] names;
+	private final ColumnType[] types;
+	private final int idsOffset;
+	private final int[] presenceOffsets;
+	private final int[] valueOffsets;
+	private final int stringsOffset;
+
+	private BinaryTable(final ByteBuffer buffer)
+	{
+		this.buffer = buffer;
+
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+		{
+			throw new IllegalArgumentException("Not a binary table");
+		}
+
+		rowCount = buffer.getInt(8);
+		final int columnCount = buffer.getInt(12);
+		names = new String[columnCount];
+		types = new ColumnType[columnCount];
+		presenceOffsets = new int[columnCount];
+		valueOffsets = new int[columnCount];
+
+		int offset = 16;
+
+		for (int i = 0; i < columnCount; i++)
+		{
+			types[i] = ColumnType.values()[buffer.get(offset)];
+			final int length = buffer.getShort(offset + 1);
+			names[i] = readString(offset + 3, length);
+			offset += 3 + length;
+		}
+
+		idsOffset = offset;
+		offset += rowCount * 4;
+
+		for (int i = 0; i < columnCount; i++)
+		{
+			presenceOffsets[i] = offset;
+			offset += bitmapSize(rowCount);
+			valueOffsets[i] = offset;
+			offset += types[i].size(rowCount);
+		}
+
+		stringsOffset = offset + 4;
+	}
+
+	/**
+	 * Memory maps table file
+	 * @param file table file
+	 * @return table
+	 * @throws IOException when file can not be mapped
+	 */
+	public static BinaryTable open(final File file) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			// Mapping stays valid after the channel is closed
+			final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new BinaryTable(buffer);
+		}
+	}
+
+	static int bitmapSize(final int rows)
+	{
+		return (rows + 7) >>> 3;
+	}
+
+	/**
+	 * Finds column by name, nested fields are named by their path, ex: equipment.astab
+	 * @param name column name
+	 * @return column index or -1 if there is no such column
+	 */
+	public int column(final String name)
+	{
+		return Arrays.asList(names).indexOf(name);
+	}
+
+	public String getColumnName(final int column)
+	{
+		return names[column];
+	}
+
+	public ColumnType getColumnType(final int column)
+	{
+		return types[column];
+	}
+
+	public int getColumnCount()
+	{
+		return names.length;
+	}
+
+	/**
+	 * Finds row of id
+	 * @param id entry id
+	 * @return row or -1 if id is not in table
+	 */
+	public int indexOf(final int id)
+	{
+		int low = 0;
+		int high = rowCount - 1;
+
+		while (low <= high)
+		{
+			final int mid = (low + high) >>> 1;
+			final int midId = getId(mid);
+
+			if (midId < id)
+			{
+				low = mid + 1;
+			}
+			else if (midId > id)
+			{
+				high = mid - 1;
+			}
+			else
+			{
+				return mid;
+			}
+		}
+
+		return -1;
+	}
+
+	public int getId(final int row)
+	{
+		return buffer.getInt(idsOffset + row * 4);
+	}
+
+	/**
+	 * Checks if value of column is present in row, absent values were null when written
+	 */
+	public boolean isPresent(final int column, final int row)
+	{
+		return bit(presenceOffsets[column], row);
+	}
+
+	/**
+	 * @return value or 0 if it is absent
+	 */
+	public int getInt(final int column, final int row)
+	{
+		check(column, ColumnType.INT);
+		return buffer.getInt(valueOffsets[column] + row * 4);
+	}
+
+	/**
+	 * @return value or false if it is absent
+	 */
+	public boolean getBoolean(final int column, final int row)
+	{
+		check(column, ColumnType.BOOLEAN);
+		return bit(valueOffsets[column], row);
+	}
+
+	/**
+	 * @return value or 0 if it is absent
+	 */
+	public double getDouble(final int column, final int row)
+	{
+		check(column, ColumnType.DOUBLE);
+		return buffer.getDouble(valueOffsets[column] + row * 8);
+	}
+
+	@Nullable
+	public String getString(final int column, final int row)
+	{
+		check(column, ColumnType.STRING);
+
+		if (!isPresent(column, row))
+		{
+			return null;
+		}
+
+		final int offset = valueOffsets[column] + row * 8;
+		return readString(stringsOffset + buffer.getInt(offset), buffer.getInt(offset + 4));
+	}
+
+	private boolean bit(final int offset, final int row)
+	{
+		return (buffer.get(offset + (row >>> 3)) & (1 << (row & 7))) != 0;
+	}
+
+	private void check(final int column, final ColumnType type)
+	{
+		if (types[column] != type)
+		{
+			throw new IllegalArgumentException("Column " + names[column] + " is " + types[column] + ", not " + type);
+		}
+	}
+
+	private String readString(final int offset, final int length)
+	{
+		final byte[] bytes = new byte[length];
+
+		for (int i = 0; i < length; i++)
+		{
+			bytes[i] = buffer.get(offset + i);
+		}
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,287 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+import javax.annotation.Nullable;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Writes id indexed values as columnar {@link BinaryTable}. Every Integer, Boolean, Double and String field
+ * of the value type is a column, fields of nested types are flattened to columns named by their path.
+ * Null values are stored as absent in the presence bitmap of the column.
+ */
+public final class BinaryTableWriter
+{
+	@RequiredArgsConstructor
+	private static final class Column
+	{
+		private final String name;
+		private final BinaryTable.ColumnType type;
+		private final Field[] path;
+
+		@Nullable
+		Object get(final Object root) throws IllegalAccessException
+		{
+			Object value = root;
+
+			for (Field field : path)
+			{
+				if (value == null)
+				{
+					return null;
+				}
+
+				value = field.get(value);
+			}
+
+			return value;
+		}
+	}
+
+	private BinaryTableWriter()
+	{
+	}
+
+	/**
+	 * Writes table to temporary file and atomically moves it over the target
+	 * @param file target file
+	 * @param type value type
+	 * @param size number of ids, ids are 0 to size - 1
+	 * @param values value of id, null ids are not written
+	 * @param <T> value type
+	 * @return number of written rows
+	 * @throws IOException when writing fails
+	 */
+	public static <T> int write(final File file, final Class<T> type, final int size, final IntFunction<T> values) throws IOException
+	{
+		final List<Column> columns = new ArrayList<>();
+		final BinaryTable.ColumnType valueType = columnType(type);
+
+		if (valueType != null)
+		{
+			columns.add(new Column("value", valueType, new Field[0]));
+		}
+		else
+		{
+			addColumns(columns, "", type, new Field[0]);
+		}
+
+		int[] ids = new int[16];
+		final List<T> rows = new ArrayList<>();
+
+		for (int id = 0; id < size; id++)
+		{
+			final T value = values.apply(id);
+
+			if (value == null)
+			{
+				continue;
+			}
+
+			if (rows.size() == ids.length)
+			{
+				ids = Arrays.copyOf(ids, ids.length * 2);
+			}
+
+			ids[rows.size()] = id;
+			rows.add(value);
+		}
+
+		final Path path = file.toPath().toAbsolutePath();
+		final Path tmp = Files.createTempFile(path.getParent(), file.getName(), ".tmp");
+
+		try
+		{
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp))))
+			{
+				writeTable(out, columns, ids, rows);
+			}
+
+			Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally
+		{
+			Files.deleteIfExists(tmp);
+		}
+
+		return rows.size();
+	}
+
+	private static void writeTable(final DataOutputStream out, final List<Column> columns, final int[] ids, final List<?> rows) throws IOException
+	{
+		final int rowCount = rows.size();
+		out.writeInt(BinaryTable.MAGIC);
+		out.writeInt(BinaryTable.VERSION);
+		out.writeInt(rowCount);
+		out.writeInt(columns.size());
+
+		for (Column column : columns)
+		{
+			final byte[] name = column.name.getBytes(StandardCharsets.UTF_8);
+			out.writeByte(column.type.ordinal());
+			out.writeShort(name.length);
+			out.write(name);
+		}
+
+		for (int row = 0; row < rowCount; row++)
+		{
+			out.writeInt(ids[row]);
+		}
+
+		final ByteArrayOutputStream strings = new ByteArrayOutputStream();
+		final Object[] values = new Object[rowCount];
+
+		for (Column column : columns)
+		{
+			final byte[] presence = new byte[BinaryTable.bitmapSize(rowCount)];
+
+			for (int row = 0; row < rowCount; row++)
+			{
+				try
+				{
+					values[row] = column.get(rows.get(row));
+				}
+				catch (IllegalAccessException e)
+				{
+					throw new IllegalStateException(e);
+				}
+
+				if (values[row] != null)
+				{
+					presence[row >>> 3] |= 1 << (row & 7);
+				}
+			}
+
+			out.write(presence);
+
+			switch (column.type)
+			{
+				case INT:
+					for (Object value : values)
+					{
+						out.writeInt(value == null ? 0 : ((Number) value).intValue());
+					}
+					break;
+				case DOUBLE:
+					for (Object value : values)
+					{
+						out.writeDouble(value == null ? 0 : ((Number) value).doubleValue());
+					}
+					break;
+				case BOOLEAN:
+					final byte[] bits = new byte[BinaryTable.bitmapSize(rowCount)];
+
+					for (int row = 0; row < rowCount; row++)
+					{
+						if (Boolean.TRUE.equals(values[row]))
+						{
+							bits[row >>> 3] |= 1 << (row & 7);
+						}
+					}
+
+					out.write(bits);
+					break;
+				case STRING:
+					for (Object value : values)
+					{
+						final byte[] bytes = value == null ? new byte[0] : ((String) value).getBytes(StandardCharsets.UTF_8);
+						out.writeInt(strings.size());
+						out.writeInt(bytes.length);
+						strings.write(bytes);
+					}
+					break;
+			}
+		}
+
+		out.writeInt(strings.size());
+		strings.writeTo(out);
+	}
+
+	private static void addColumns(final List<Column> columns, final String prefix, final Class<?> type, final Field[] path)
+	{
+		for (Field field : type.getDeclaredFields())
+		{
+			if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic())
+			{
+				continue;
+			}
+
+			field.setAccessible(true);
+			final Field[] fieldPath = Arrays.copyOf(path, path.length + 1);
+			fieldPath[path.length] = field;
+
+			final BinaryTable.ColumnType columnType = columnType(field.getType());
+
+			if (columnType != null)
+			{
+				columns.add(new Column(prefix + field.getName(), columnType, fieldPath));
+			}
+			else
+			{
+				addColumns(columns, prefix + field.getName() + ".", field.getType(), fieldPath);
+			}
+		}
+	}
+
+	@Nullable
+	private static BinaryTable.ColumnType columnType(final Class<?> type)
+	{
+		if (type == Integer.class || type == int.class)
+		{
+			return BinaryTable.ColumnType.INT;
+		}
+
+		if (type == Boolean.class || type == boolean.class)
+		{
+			return BinaryTable.ColumnType.BOOLEAN;
+		}
+
+		if (type == Double.class || type == double.class)
+		{
+			return BinaryTable.ColumnType.DOUBLE;
+		}
+
+		if (type == String.class)
+		{
+			return BinaryTable.ColumnType.STRING;
+		}
+
+		return null;
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import javax.annotation.Nullable;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.cache.ItemManager;
+import net.runelite.cache.NpcManager;
+import net.runelite.cache.definitions.ItemDefinition;
+import net.runelite.cache.definitions.NpcDefinition;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.util.Namer;
+
+/**
+ * Cache definitions shared by all dumpers. Every definition manager is loaded only once, and names are normalized
+ * up front, so dumpers do not decode the cache or strip tags again.
+ */
+@Slf4j
+public class DumpContext
+{
+	@Getter
+	private final Collection<ItemDefinition> items;
+
+	@Getter
+	private final Collection<NpcDefinition> npcs;
+
+	/**
+	 * Normalized names indexed by id, null for unnamed definitions
+	 */
+	private final String[] itemNames;
+	private final String[] npcNames;
+
+	private DumpContext(final Collection<ItemDefinition> items, final String[] itemNames,
+		final Collection<NpcDefinition> npcs, final String[] npcNames)
+	{
+		this.items = items;
+		this.itemNames = itemNames;
+		this.npcs = npcs;
+		this.npcNames = npcNames;
+	}
+
+	/**
+	 * Loads item and npc definitions in parallel
+	 * @param store loaded cache store
+	 * @return context with all definitions
+	 * @throws IOException when cache can not be read
+	 */
+	public static DumpContext load(final Store store) throws IOException
+	{
+		final long start = System.currentTimeMillis();
+
+		final CompletableFuture<ItemManager> itemManager = loadAsync(() ->
+		{
+			final ItemManager manager = new ItemManager(store);
+			manager.load();
+			return manager;
+		});
+
+		final CompletableFuture<NpcManager> npcManager = loadAsync(() ->
+		{
+			final NpcManager manager = new NpcManager(store);
+			manager.load();
+			return manager;
+		});
+
+		final Collection<ItemDefinition> items;
+		final Collection<NpcDefinition> npcs;
+
+		try
+		{
+			items = itemManager.join().getItems();
+			npcs = npcManager.join().getNpcs();
+		}
+		catch (CompletionException e)
+		{
+			if (e.getCause() instanceof IOException)
+			{
+				throw (IOException) e.getCause();
+			}
+
+			throw e;
+		}
+
+		final DumpContext context = of(items, npcs);
+		log.info("Loaded {} items and {} npcs in {} ms", items.size(), npcs.size(), System.currentTimeMillis() - start);
+		return context;
+	}
+
+	/**
+	 * Creates context from already loaded definitions
+	 * @param items item definitions
+	 * @param npcs npc definitions
+	 * @return context with normalized names
+	 */
+	public static DumpContext of(final Collection<ItemDefinition> items, final Collection<NpcDefinition> npcs)
+	{
+		final String[] itemNames = new String[items.stream().mapToInt(item -> item.id).max().orElse(-1) + 1];
+		for (ItemDefinition item : items)
+		{
+			itemNames[item.id] = normalizeName(item.name);
+		}
+
+		final String[] npcNames = new String[npcs.stream().mapToInt(NpcDefinition::getId).max().orElse(-1) + 1];
+		for (NpcDefinition npc : npcs)
+		{
+			npcNames[npc.getId()] = normalizeName(npc.getName());
+		}
+
+		return new DumpContext(items, itemNames, npcs, npcNames);
+	}
+
+	/**
+	 * Strips tags and non-breaking spaces from cache name
+	 * @param name cache name
+	 * @return normalized name or null when the definition has no name
+	 */
+	@Nullable
+	public static String normalizeName(@Nullable final String name)
+	{
+		if (name == null || name.equalsIgnoreCase("NULL"))
+		{
+			return null;
+		}
+
+		final String normalized = Namer
+			.removeTags(name)
+			.replace('\u00A0', ' ')
+			.trim();
+
+		return normalized.isEmpty() ? null : normalized;
+	}
+
+	/**
+	 * @return highest item id, ids are dense so it can be used to size per item arrays
+	 */
+	public int getMaxItemId()
+	{
+		return itemNames.length - 1;
+	}
+
+	public int getMaxNpcId()
+	{
+		return npcNames.length - 1;
+	}
+
+	@Nullable
+	public String getItemName(final int id)
+	{
+		return id >= 0 && id < itemNames.length ? itemNames[id] : null;
+	}
+
+	@Nullable
+	public String getNpcName(final int id)
+	{
+		return id >= 0 && id < npcNames.length ? npcNames[id] : null;
+	}
+
+	private static <T> CompletableFuture<T> loadAsync(final Callable<T> loader)
+	{
+		return CompletableFuture.supplyAsync(() ->
+		{
+			try
+			{
+				return loader.call();
+			}
+			catch (Exception e)
+			{
+				throw new CompletionException(e);
+			}
+		});
+	}
+}
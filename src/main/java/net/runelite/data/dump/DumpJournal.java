@@ -0,0 +1,232 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.data.App;
+
+/**
+ * Write-ahead journal of ids completed by a dumper, so a run that died partway through only finishes the remainder
+ * when restarted. Every completed id is appended as one JSON line with its value, ids without value were completed
+ * with nothing to dump. The journal is deleted once the dump it belongs to was written.
+ *
+ * @param <T> value type
+ */
+@Slf4j
+public class DumpJournal<T> implements Closeable
+{
+	/**
+	 * Journal of a run that died longer ago than this is discarded, as its values are likely outdated by then
+	 */
+	private static final long MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+	private final File file;
+	private final Class<T> type;
+	private final Map<Integer, T> completed;
+	private final Writer writer;
+
+	private DumpJournal(final File file, final Class<T> type, final Map<Integer, T> completed, final Writer writer)
+	{
+		this.file = file;
+		this.type = type;
+		this.completed = completed;
+		this.writer = writer;
+	}
+
+	/**
+	 * Reads ids completed by previous run and opens journal for appending
+	 * @param file journal file
+	 * @param type value type
+	 * @param <T> value type
+	 * @return journal
+	 * @throws IOException when journal can not be opened
+	 */
+	public static <T> DumpJournal<T> open(final File file, final Class<T> type) throws IOException
+	{
+		final Map<Integer, T> completed = new HashMap<>();
+
+		if (System.currentTimeMillis() - file.lastModified() > MAX_AGE_MILLIS)
+		{
+			Files.deleteIfExists(file.toPath());
+		}
+
+		try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))
+		{
+			String line;
+			int corrupted = 0;
+
+			while ((line = reader.readLine()) != null)
+			{
+				if (line.isEmpty())
+				{
+					continue;
+				}
+
+				try
+				{
+					readLine(line, type, completed);
+				}
+				catch (IOException | RuntimeException e)
+				{
+					// Last line of a killed run can be cut off
+					corrupted++;
+				}
+			}
+
+			log.info("Resuming from journal {} with {} completed ids, {} corrupted lines", file, completed.size(), corrupted);
+		}
+		catch (NoSuchFileException e)
+		{
+			// Nothing to resume
+		}
+
+		file.getAbsoluteFile().getParentFile().mkdirs();
+		final Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+		// Cut off line of previous run must not swallow the first line of this one
+		writer.write('\n');
+		writer.flush();
+
+		return new DumpJournal<>(file, type, completed, writer);
+	}
+
+	/**
+	 * @return true if id was completed by previous run
+	 */
+	public boolean isCompleted(final int id)
+	{
+		return completed.containsKey(id);
+	}
+
+	/**
+	 * @return value of id completed by previous run, null if it had nothing to dump
+	 */
+	@Nullable
+	public T get(final int id)
+	{
+		return completed.get(id);
+	}
+
+	/**
+	 * Appends completed ids and flushes them, so they survive the process dying
+	 * @param values values by completed id, null values for ids with nothing to dump
+	 * @throws IOException when writing fails
+	 */
+	public void append(final Map<Integer, T> values) throws IOException
+	{
+		// Serialize outside of the lock, workers only wait for each other to write whole lines
+		final StringWriter lines = new StringWriter();
+
+		for (Map.Entry<Integer, T> value : values.entrySet())
+		{
+			final JsonWriter line = new JsonWriter(lines);
+			line.beginObject();
+			line.name("id").value(value.getKey());
+
+			if (value.getValue() != null)
+			{
+				line.name("value");
+				App.GSON.toJson(value.getValue(), type, line);
+			}
+
+			line.endObject();
+			line.flush();
+			lines.write('\n');
+		}
+
+		synchronized (writer)
+		{
+			writer.write(lines.toString());
+			writer.flush();
+		}
+	}
+
+	/**
+	 * Closes and deletes journal, called once the dump was written
+	 * @throws IOException when deleting fails
+	 */
+	public void delete() throws IOException
+	{
+		close();
+		Files.deleteIfExists(file.toPath());
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		synchronized (writer)
+		{
+			writer.close();
+		}
+	}
+
+	private static <T> void readLine(final String line, final Class<T> type, final Map<Integer, T> completed) throws IOException
+	{
+		try (JsonReader reader = new JsonReader(new StringReader(line)))
+		{
+			Integer id = null;
+			T value = null;
+			reader.beginObject();
+
+			while (reader.hasNext())
+			{
+				switch (reader.nextName())
+				{
+					case "id":
+						id = reader.nextInt();
+						break;
+					case "value":
+						value = App.GSON.fromJson(reader, type);
+						break;
+					default:
+						reader.skipValue();
+				}
+			}
+
+			reader.endObject();
+
+			if (id != null)
+			{
+				completed.put(id, value);
+			}
+		}
+	}
+}
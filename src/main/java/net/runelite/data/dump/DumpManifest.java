@@ -0,0 +1,179 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import com.google.common.hash.Hashing;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.data.App;
+
+/**
+ * Record of what every id of a dump was built from, so the next run can carry over ids whose inputs did not change
+ */
+@Slf4j
+@Value
+public class DumpManifest
+{
+	/**
+	 * The wiki keeps recent changes for 30 days, older manifests can not be brought up to date
+	 */
+	private static final long MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(30);
+
+	/**
+	 * Changes are listed from a bit before the previous run started, so edits racing with it are not missed
+	 */
+	private static final long OVERLAP_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+	@Value
+	public static class Entry
+	{
+		/**
+		 * Wiki page the id was dumped from, null if there is none
+		 */
+		@Nullable
+		private final String title;
+
+		/**
+		 * Revision of the page when the id was dumped, 0 if it is not known
+		 */
+		private final long revision;
+		private final String definitionHash;
+	}
+
+	/**
+	 * Time the run started at, in epoch millis
+	 */
+	private final long timestamp;
+	private final Map<Integer, Entry> entries;
+
+	/**
+	 * Loads manifest of previous run
+	 * @param file manifest file, can be null
+	 * @return manifest or null if there is none or it is too old to be updated from recent changes
+	 */
+	@Nullable
+	public static DumpManifest load(@Nullable final File file)
+	{
+		if (file == null)
+		{
+			return null;
+		}
+
+		final DumpManifest manifest;
+
+		try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))
+		{
+			manifest = App.GSON.fromJson(reader, DumpManifest.class);
+		}
+		catch (NoSuchFileException e)
+		{
+			return null;
+		}
+		catch (IOException | RuntimeException e)
+		{
+			log.warn("Failed to read manifest {}, dumping everything", file, e);
+			return null;
+		}
+
+		if (manifest == null || manifest.entries == null || System.currentTimeMillis() - manifest.timestamp > MAX_AGE_MILLIS)
+		{
+			log.info("Manifest {} is too old, dumping everything", file);
+			return null;
+		}
+
+		return manifest;
+	}
+
+	/**
+	 * @return time to list wiki changes since
+	 */
+	public long getChangesSince()
+	{
+		return timestamp - OVERLAP_MILLIS;
+	}
+
+	/**
+	 * Writes manifest to temporary file and atomically moves it over the previous one
+	 * @param file manifest file
+	 * @throws IOException when writing fails
+	 */
+	public void save(final File file) throws IOException
+	{
+		final Path path = file.toPath().toAbsolutePath();
+		Files.createDirectories(path.getParent());
+		final Path tmp = Files.createTempFile(path.getParent(), file.getName(), ".tmp");
+
+		try
+		{
+			try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8))
+			{
+				App.GSON.toJson(this, writer);
+			}
+
+			Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally
+		{
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	/**
+	 * Hashes dumper inputs, parts are separated so their boundaries matter
+	 * @param parts input values
+	 * @return hex hash
+	 */
+	public static String hash(final Object... parts)
+	{
+		final StringBuilder builder = new StringBuilder();
+
+		for (Object part : parts)
+		{
+			builder.append(part).append('\0');
+		}
+
+		return hashText(builder);
+	}
+
+	/**
+	 * @param text page text
+	 * @return hex hash of text
+	 */
+	public static String hashText(final CharSequence text)
+	{
+		return Hashing.sha256().hashString(text, StandardCharsets.UTF_8).toString();
+	}
+}
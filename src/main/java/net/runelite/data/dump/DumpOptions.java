@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import java.io.File;
+import javax.annotation.Nullable;
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class DumpOptions
+{
+	/**
+	 * Directory the dumps are written to
+	 */
+	@Builder.Default
+	private final File outputDirectory = new File("runelite/runelite-client/src/main/resources/");
+
+	/**
+	 * Also write columnar binary tables, see {@link BinaryTable}
+	 */
+	private final boolean binary;
+
+	/**
+	 * Only recompute ids whose definition or wiki page changed since the last run, see {@link DumpManifest}
+	 */
+	private final boolean incremental;
+
+	/**
+	 * Directory for manifests of previous runs, null disables incremental dumps
+	 */
+	@Nullable
+	private final File manifestDirectory;
+
+	/**
+	 * Directory for journals of running dumps, see {@link DumpJournal}, null disables resuming
+	 */
+	@Nullable
+	private final File journalDirectory;
+
+	/**
+	 * Registry the dumpers record their stage timers and counters to
+	 */
+	@Builder.Default
+	private final Metrics metrics = Metrics.global();
+
+	/**
+	 * Progress of the dumpers, reported while the pipeline runs
+	 */
+	@Builder.Default
+	private final DumpProgress progress = new DumpProgress();
+
+	@Nullable
+	public File getManifestFile(final String name)
+	{
+		return manifestDirectory == null ? null : new File(manifestDirectory, name + ".manifest.json");
+	}
+
+	@Nullable
+	public File getJournalFile(final String name)
+	{
+		return journalDirectory == null ? null : new File(journalDirectory, name + ".journal");
+	}
+
+	/**
+	 * @param name name of dumper
+	 * @param total number of ids the dumper will report, 0 when not known
+	 * @return progress of dumper, counters are recorded to metrics too
+	 */
+	public DumpProgress.Task startProgress(final String name, final long total)
+	{
+		return progress.task(name, total, metrics);
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs all dumpers concurrently. Dumpers share one {@link WikiSource}, with {@link MediaWiki} their requests go through
+ * one prioritized throttle and identical page fetches are shared, and slow pages of one dumper do not leave the network idle.
+ */
+@Slf4j
+public class DumpPipeline
+{
+	@FunctionalInterface
+	public interface Dumper
+	{
+		void dump(DumpContext context, WikiSource wiki, DumpOptions options) throws IOException;
+	}
+
+	private final Map<String, Dumper> dumpers = new LinkedHashMap<>();
+
+	/**
+	 * @param name name of dumper used in logs
+	 * @param dumper dumper to run
+	 * @return this pipeline
+	 */
+	public DumpPipeline add(final String name, final Dumper dumper)
+	{
+		dumpers.put(name, dumper);
+		return this;
+	}
+
+	/**
+	 * Runs all dumpers and waits for them to finish. Failure of one dumper does not stop the others.
+	 * @throws IOException when any dumper failed, failures of other dumpers are suppressed
+	 */
+	public void run(final DumpContext context, final WikiSource wiki, final DumpOptions options) throws IOException
+	{
+		// Single reporter thread logs progress of all dumpers, so the workers never log per id
+		final Metrics metrics = options.getMetrics();
+		options.getProgress().start(metrics);
+
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, dumpers.size()), new ThreadFactoryBuilder()
+			.setNameFormat("dumper-%d")
+			.build());
+		final long start = System.currentTimeMillis();
+		final Map<String, Future<?>> futures = new LinkedHashMap<>();
+		IOException failure = null;
+
+		try
+		{
+			dumpers.forEach((name, dumper) -> futures.put(name, executor.submit(() ->
+			{
+				final long dumperStart = System.currentTimeMillis();
+				final Metrics.Timer timer = metrics.timer("dump." + name.replace(' ', '_'));
+				final long timerStart = timer.start();
+				dumper.dump(context, wiki, options);
+				timer.stop(timerStart);
+				log.info("Finished {} in {} ms", name, System.currentTimeMillis() - dumperStart);
+				return null;
+			})));
+
+			for (Map.Entry<String, Future<?>> future : futures.entrySet())
+			{
+				try
+				{
+					future.getValue().get();
+				}
+				catch (ExecutionException e)
+				{
+					log.error("Dumper {} failed", future.getKey(), e.getCause());
+					final IOException cause = new IOException("Dumper " + future.getKey() + " failed", e.getCause());
+
+					if (failure == null)
+					{
+						failure = cause;
+					}
+					else
+					{
+						failure.addSuppressed(cause);
+					}
+				}
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for dumpers");
+		}
+		finally
+		{
+			executor.shutdownNow();
+			options.getProgress().close();
+		}
+
+		if (failure != null)
+		{
+			throw failure;
+		}
+
+		log.info("Finished all dumpers in {} ms", System.currentTimeMillis() - start);
+	}
+}
@@ -0,0 +1,370 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
+import lombok.Getter;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Progress of running dumpers. Workers only bump lock free counters and queue trace events, a single reporter
+ * thread logs rate and ETA of every dumper and writes the optional trace file, so logging never blocks workers.
+ */
+@Slf4j
+public class DumpProgress implements Closeable
+{
+	private static final long TRACE_PERIOD_MILLIS = 250;
+	private static final long REPORT_PERIOD_MILLIS = 10_000;
+	private static final Gson TRACE_GSON = new Gson();
+
+	public enum Status
+	{
+		DUMPED,
+		SKIPPED,
+		FAILED
+	}
+
+	/**
+	 * Line of the trace file
+	 */
+	@Value
+	private static final class TraceEvent
+	{
+		private final long time;
+		private final String dumper;
+		private final int id;
+		private final Status status;
+		@Nullable
+		private final String detail;
+	}
+
+	/**
+	 * Progress of single dumper
+	 */
+	public final class Task
+	{
+		@Getter
+		private final String name;
+		private final long started = System.nanoTime();
+		private final LongAdder dumped = new LongAdder();
+		private final LongAdder skipped = new LongAdder();
+		private final LongAdder failed = new LongAdder();
+		private final Metrics.Counter dumpedCounter;
+		private final Metrics.Counter skippedCounter;
+		private final Metrics.Counter failedCounter;
+		private final LongAdder pagesToFetch = new LongAdder();
+		private final LongAdder pagesFetched = new LongAdder();
+		private volatile long fetchStarted;
+		private volatile long idsStarted = started;
+		private volatile long total;
+
+		private Task(final String name, final long total, final Metrics metrics)
+		{
+			this.name = name;
+			this.total = total;
+			this.dumpedCounter = metrics.counter(name + ".dumped");
+			this.skippedCounter = metrics.counter(name + ".skipped");
+			this.failedCounter = metrics.counter(name + ".failed");
+		}
+
+		/**
+		 * Adds pages the dumper is about to fetch, progress reports fetching until all of them are fetched
+		 * @param pages number of pages
+		 */
+		public void fetching(final long pages)
+		{
+			if (fetchStarted == 0)
+			{
+				fetchStarted = System.nanoTime();
+			}
+
+			pagesToFetch.add(pages);
+		}
+
+		/**
+		 * @param pages number of pages fetched or found missing
+		 */
+		public void fetched(final int pages)
+		{
+			pagesFetched.add(pages);
+		}
+
+		/**
+		 * Sets number of ids the dumper will report once it is known, their rate is measured from now on
+		 * @param total number of ids
+		 */
+		public void setTotal(final long total)
+		{
+			this.idsStarted = System.nanoTime();
+			this.total = total;
+		}
+
+		/**
+		 * @param id dumped id
+		 * @param detail page or name the id was dumped from, only used in trace
+		 */
+		public void dumped(final int id, @Nullable final String detail)
+		{
+			dumped.increment();
+			dumpedCounter.increment();
+			trace(id, Status.DUMPED, detail);
+		}
+
+		/**
+		 * @param id id that has nothing to dump
+		 * @param reason why id was skipped, only used in trace
+		 */
+		public void skipped(final int id, final String reason)
+		{
+			skipped.increment();
+			skippedCounter.increment();
+			trace(id, Status.SKIPPED, reason);
+		}
+
+		/**
+		 * @param id id that could not be dumped
+		 * @param reason why the id failed, only used in trace
+		 */
+		public void failed(final int id, final String reason)
+		{
+			failed.increment();
+			failedCounter.increment();
+			trace(id, Status.FAILED, reason);
+		}
+
+		/**
+		 * @return number of dumped, skipped and failed ids
+		 */
+		public long getDone()
+		{
+			return dumped.sum() + skipped.sum() + failed.sum();
+		}
+
+		private void trace(final int id, final Status status, @Nullable final String detail)
+		{
+			if (traceFile != null)
+			{
+				trace.add(new TraceEvent(System.currentTimeMillis(), name, id, status, detail));
+			}
+		}
+
+		String getStatusLine()
+		{
+			final long toFetch = pagesToFetch.sum();
+			final long fetched = pagesFetched.sum();
+
+			if (fetched < toFetch)
+			{
+				// Fetching takes most of the run, so until it is done the ETA is the fetching one
+				final double rate = fetched / (Math.max(1, System.nanoTime() - fetchStarted) / 1e9);
+				final StringBuilder line = new StringBuilder(name).append(": fetched ").append(fetched).append('/').append(toFetch)
+					.append(String.format(" pages (%.1f%%), %.0f pages/s", 100.0 * fetched / toFetch, rate));
+
+				if (rate > 0)
+				{
+					line.append(", ETA ").append((long) Math.ceil((toFetch - fetched) / rate)).append('s');
+				}
+
+				return line.toString();
+			}
+
+			final long done = getDone();
+			final long total = this.total;
+			final double seconds = Math.max(1, System.nanoTime() - idsStarted) / 1e9;
+			final double rate = done / seconds;
+			final StringBuilder line = new StringBuilder(name).append(": ").append(done);
+
+			if (total > 0)
+			{
+				line.append('/').append(total).append(String.format(" (%.1f%%)", 100.0 * done / total));
+			}
+
+			line.append(String.format(", %.0f ids/s", rate));
+
+			if (total > done && rate > 0)
+			{
+				line.append(", ETA ").append((long) Math.ceil((total - done) / rate)).append('s');
+			}
+
+			return line.append(", ").append(skipped.sum()).append(" skipped, ").append(failed.sum()).append(" failed").toString();
+		}
+	}
+
+	@Nullable
+	private final File traceFile;
+	private final List<Task> tasks = new CopyOnWriteArrayList<>();
+	private final Queue<TraceEvent> trace = new ConcurrentLinkedQueue<>();
+
+	private ScheduledExecutorService reporter;
+	private volatile Writer traceWriter;
+
+	public DumpProgress()
+	{
+		this(null);
+	}
+
+	/**
+	 * @param traceFile file every dumped, skipped and failed id is appended to as JSON line, null to disable tracing
+	 */
+	public DumpProgress(@Nullable final File traceFile)
+	{
+		this.traceFile = traceFile;
+	}
+
+	/**
+	 * Creates progress of dumper, it is reported until this progress is closed
+	 * @param name name of dumper, also prefix of its dumped, skipped and failed counters
+	 * @param total number of ids the dumper will report, 0 when not known
+	 * @param metrics registry of the counters
+	 * @return progress of dumper
+	 */
+	public Task task(final String name, final long total, final Metrics metrics)
+	{
+		final Task task = new Task(name, total, metrics);
+		tasks.add(task);
+		return task;
+	}
+
+	/**
+	 * Starts reporter thread, opens trace file if tracing
+	 * @param metrics registry whose status line is logged with every report
+	 * @throws IOException when trace file can not be opened
+	 */
+	public synchronized void start(final Metrics metrics) throws IOException
+	{
+		if (reporter != null)
+		{
+			return;
+		}
+
+		if (traceFile != null)
+		{
+			traceFile.getAbsoluteFile().getParentFile().mkdirs();
+			traceWriter = Files.newBufferedWriter(traceFile.toPath(), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		}
+
+		reporter = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+			.setNameFormat("dump-progress")
+			.setDaemon(true)
+			.build());
+		reporter.scheduleAtFixedRate(this::writeTrace, TRACE_PERIOD_MILLIS, TRACE_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+		reporter.scheduleAtFixedRate(() ->
+		{
+			report();
+			log.info("Metrics: {}", metrics.getStatusLine());
+		}, REPORT_PERIOD_MILLIS, REPORT_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops reporter thread, logs final progress of all dumpers and writes rest of the trace
+	 */
+	@Override
+	public synchronized void close() throws IOException
+	{
+		if (reporter == null)
+		{
+			return;
+		}
+
+		reporter.shutdown();
+
+		try
+		{
+			reporter.awaitTermination(REPORT_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+
+		reporter = null;
+		report();
+		tasks.clear();
+
+		if (traceWriter != null)
+		{
+			try (Writer writer = traceWriter)
+			{
+				writeTrace();
+			}
+			finally
+			{
+				traceWriter = null;
+			}
+		}
+	}
+
+	private void report()
+	{
+		for (Task task : tasks)
+		{
+			log.info("Progress of {}", task.getStatusLine());
+		}
+	}
+
+	private void writeTrace()
+	{
+		final Writer writer = traceWriter;
+
+		if (writer == null)
+		{
+			return;
+		}
+
+		try
+		{
+			TraceEvent event;
+
+			while ((event = trace.poll()) != null)
+			{
+				TRACE_GSON.toJson(event, writer);
+				writer.write('\n');
+			}
+
+			writer.flush();
+		}
+		catch (IOException e)
+		{
+			log.warn("Failed to write trace to {}", traceFile, e);
+		}
+	}
+}
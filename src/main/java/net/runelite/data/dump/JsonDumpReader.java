@@ -0,0 +1,75 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import com.google.gson.stream.JsonReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.HashMap;
+import java.util.Map;
+import net.runelite.data.App;
+
+/**
+ * Reads id to value JSON object written by {@link JsonDumpWriter} entry by entry
+ */
+public final class JsonDumpReader
+{
+	private JsonDumpReader()
+	{
+	}
+
+	/**
+	 * @param file dump file
+	 * @param type value type
+	 * @param <T> value type
+	 * @return values by id, empty if there is no dump yet
+	 * @throws IOException when reading fails
+	 */
+	public static <T> Map<Integer, T> read(final File file, final Class<T> type) throws IOException
+	{
+		final Map<Integer, T> values = new HashMap<>();
+
+		try (JsonReader reader = new JsonReader(Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)))
+		{
+			reader.beginObject();
+
+			while (reader.hasNext())
+			{
+				final int id = Integer.parseInt(reader.nextName());
+				values.put(id, App.GSON.fromJson(reader, type));
+			}
+
+			reader.endObject();
+		}
+		catch (NoSuchFileException e)
+		{
+			return values;
+		}
+
+		return values;
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import com.google.gson.stream.JsonWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.data.App;
+
+/**
+ * Streams id to value JSON object to file entry by entry, so the whole document never has to be held in memory.
+ * The document is written to temporary file and moved over the target only on {@link #commit()}, so readers
+ * never see partially written dump and failed dump keeps the previous one.
+ */
+@Slf4j
+public class JsonDumpWriter implements Closeable
+{
+	private final Path file;
+	private final Path tmp;
+	private final JsonWriter writer;
+	private boolean committed;
+
+	/**
+	 * Number of written entries
+	 */
+	@Getter
+	private int count;
+
+	private JsonDumpWriter(final Path file, final Path tmp, final JsonWriter writer)
+	{
+		this.file = file;
+		this.tmp = tmp;
+		this.writer = writer;
+	}
+
+	/**
+	 * Starts writing JSON object to file
+	 * @param file target file
+	 * @return writer
+	 * @throws IOException when temporary file can not be created
+	 */
+	public static JsonDumpWriter open(final File file) throws IOException
+	{
+		final Path path = file.toPath().toAbsolutePath();
+		final Path tmp = Files.createTempFile(path.getParent(), file.getName(), ".tmp");
+
+		try
+		{
+			// Use writer configured by App.GSON so output is formatted same as App.GSON.toJson
+			final JsonWriter writer = App.GSON.newJsonWriter(Files.newBufferedWriter(tmp, StandardCharsets.UTF_8));
+			writer.beginObject();
+			return new JsonDumpWriter(path, tmp, writer);
+		}
+		catch (IOException e)
+		{
+			Files.deleteIfExists(tmp);
+			throw e;
+		}
+	}
+
+	/**
+	 * Writes entry, entries should be written in id order
+	 * @param id entry id
+	 * @param value entry value
+	 * @throws IOException when writing fails
+	 */
+	public void write(final int id, final Object value) throws IOException
+	{
+		writer.name(Integer.toString(id));
+		App.GSON.toJson(value, value.getClass(), writer);
+		count++;
+	}
+
+	/**
+	 * Finishes the document and atomically replaces target file with it
+	 * @throws IOException when writing or moving fails
+	 */
+	public void commit() throws IOException
+	{
+		writer.endObject();
+		writer.close();
+		Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		committed = true;
+	}
+
+	/**
+	 * Discards the document unless it was committed
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if (committed)
+		{
+			return;
+		}
+
+		try
+		{
+			writer.close();
+		}
+		catch (IOException e)
+		{
+			log.debug("Failed to close {}", tmp, e);
+		}
+
+		Files.deleteIfExists(tmp);
+	}
+}
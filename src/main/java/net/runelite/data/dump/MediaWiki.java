@@ -23,45 +23,250 @@
  */
 package net.runelite.data.dump;
 
+import com.google.common.base.Strings;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.stream.JsonReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import net.runelite.data.App;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import javax.annotation.Nullable;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
 import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 
-public class MediaWiki
+@Slf4j
+public class MediaWiki implements WikiSource
 {
-	private static final class WikiInnerResponse
-	{
-		Map<String, String> wikitext;
-	}
+	/**
+	 * Maximum number of titles the API accepts in single query for non-bot users
+	 */
+	private static final int MAX_TITLES_PER_QUERY = 50;
+
+	private static final int DEFAULT_MAX_REQUESTS = 64;
+	private static final int DEFAULT_MAX_REQUESTS_PER_HOST = 8;
 
-	private static final class WikiResponse
+	private static final int MAX_LAG_SECONDS = 5;
+	private static final int MAX_ATTEMPTS = 8;
+	private static final long INITIAL_BACKOFF_MILLIS = 500;
+	private static final long MAX_BACKOFF_MILLIS = 60_000;
+
+	@FunctionalInterface
+	private interface ResponseHandler<T>
 	{
-		WikiInnerResponse parse;
+		T handle(Response response) throws IOException;
 	}
 
-	private final OkHttpClient client = new OkHttpClient();
-	private final OkHttpClient clientNoRedirect = client.newBuilder()
-		.followRedirects(false)
-		.followSslRedirects(false)
-		.build();
+	private final OkHttpClient client;
+	private final OkHttpClient clientNoRedirect;
+	private final ScheduledExecutorService scheduler;
+	private final RequestThrottle throttle;
 
 	private final HttpUrl base;
+	@Nullable
+	private final MediaWikiCache cache;
+	private final Metrics metrics;
+
+	/**
+	 * Page content fetches in progress by requested title, so concurrent dumpers asking for the same page share one fetch
+	 */
+	private final Map<String, CompletableFuture<MediaWikiCache.Entry>> pagesInFlight = new ConcurrentHashMap<>();
 
 	public MediaWiki(final String base)
+	{
+		this(base, null, 0, 0, 0, null);
+	}
+
+	/**
+	 * @param base wiki url
+	 * @param cacheDirectory directory for persisting fetched pages between runs, null to disable caching
+	 * @param maxRequests maximum number of requests in flight, 0 for default
+	 * @param maxRequestsPerHost maximum number of requests in flight to the wiki host, 0 for default
+	 * @param requestsPerSecond maximum sustained request rate, 0 for unlimited
+	 * @param metrics registry for request metrics, null for the global one
+	 */
+	@Builder
+	public MediaWiki(final String base, @Nullable final File cacheDirectory, final int maxRequests, final int maxRequestsPerHost,
+		final double requestsPerSecond, @Nullable final Metrics metrics)
 	{
 		this.base = HttpUrl.parse(base);
+		this.cache = cacheDirectory == null ? null : new MediaWikiCache(cacheDirectory);
+		this.metrics = metrics == null ? Metrics.global() : metrics;
+
+		// Network calls are queued on the dispatcher instead of blocking caller threads, the dispatcher
+		// starts them once there is free slot
+		final Dispatcher dispatcher = new Dispatcher(Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+			.setNameFormat("mediawiki-%d")
+			.setDaemon(true)
+			.build()));
+		dispatcher.setMaxRequests(maxRequests > 0 ? maxRequests : DEFAULT_MAX_REQUESTS);
+		dispatcher.setMaxRequestsPerHost(maxRequestsPerHost > 0 ? maxRequestsPerHost : DEFAULT_MAX_REQUESTS_PER_HOST);
+
+		this.client = new OkHttpClient.Builder()
+			.dispatcher(dispatcher)
+			.build();
+		this.clientNoRedirect = client.newBuilder()
+			.followRedirects(false)
+			.followSslRedirects(false)
+			.build();
+
+		// Concurrency adapts between 1 and the per host limit, the dispatcher limits are just a safety net
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+			.setNameFormat("mediawiki-scheduler")
+			.setDaemon(true)
+			.build());
+		this.throttle = new RequestThrottle(scheduler, requestsPerSecond, dispatcher.getMaxRequestsPerHost());
+
+		this.metrics.gauge("wiki.inflight", throttle::getInFlight);
+		this.metrics.gauge("wiki.concurrency", throttle::getLimit);
 	}
 
 	public String getSpecialLookupData(final String type, final int id, final int section)
+	{
+		return getSpecialLookupDataAsync(type, id, section).join();
+	}
+
+	public String getPageData(final String page, final int section)
+	{
+		return getPageDataAsync(page, section).join();
+	}
+
+	/**
+	 * Fetches wikitext of multiple pages at once, using at most one request per 50 titles
+	 * @param pages page titles to fetch
+	 * @return map of requested page title to its wikitext, missing pages are omitted
+	 * @throws java.util.concurrent.CompletionException when some pages could not be fetched even after retries
+	 */
+	@Override
+	public Map<String, String> getPagesData(final Collection<String> pages)
+	{
+		return getPagesDataAsync(pages).join();
+	}
+
+	/**
+	 * Same as {@link #getPagesData(Collection)}, but keeps revision of each page with its wikitext
+	 * @param pages page titles to fetch
+	 * @return map of requested page title to its latest revision, missing pages are omitted
+	 * @throws java.util.concurrent.CompletionException when some pages could not be fetched even after retries
+	 */
+	@Override
+	public Map<String, MediaWikiCache.Entry> getPages(final Collection<String> pages)
+	{
+		return getPagesAsync(pages).join();
+	}
+
+	@Override
+	public Map<String, MediaWikiCache.Entry> getPages(final Collection<String> pages, final IntConsumer fetched)
+	{
+		return getPagesAsync(pages, fetched).join();
+	}
+
+	/**
+	 * Gets latest revision ids of pages without their content, using at most one request per 50 titles
+	 * @param pages page titles
+	 * @return map of requested page title to its latest revision id, missing pages are omitted
+	 */
+	@Override
+	public Map<String, Long> getRevisions(final Collection<String> pages)
+	{
+		return getRevisionsAsync(pages).join();
+	}
+
+	/**
+	 * Lists main namespace pages that were edited, created, moved or deleted since the given time
+	 * @param since time of the oldest change to list, the wiki keeps only changes of the last 30 days
+	 * @return changed page titles
+	 */
+	@Override
+	public Set<String> getRecentChanges(final Instant since)
+	{
+		return getRecentChangesAsync(since).join();
+	}
+
+	/**
+	 * Lists all main namespace pages that transclude the given template
+	 * @param template template name without the namespace prefix, ex: Infobox Item
+	 * @return page titles
+	 */
+	@Override
+	public List<String> getTemplateTransclusions(final String template)
+	{
+		return getTemplateTransclusionsAsync(template).join();
+	}
+
+	public CompletableFuture<String> getSpecialLookupDataAsync(final String type, final int id, final int section)
+	{
+		return getSpecialLookupTitleAsync(type, id)
+			.thenCompose(page -> page == null ? CompletableFuture.completedFuture("") : getPageDataAsync(page, section));
+	}
+
+	/**
+	 * Fetches single page. Whole pages go through {@link #getPagesAsync(Collection)}, so they share fetches
+	 * in flight for the same title and use the page cache.
+	 * @param page page title, can be url encoded
+	 * @param section section to fetch, -1 for whole page
+	 * @return future of wikitext, empty when page does not exist
+	 */
+	public CompletableFuture<String> getPageDataAsync(String page, final int section)
+	{
+		// decode html encoded page name
+		// ex: Mage%27s book -> Mage's_book
+		try
+		{
+			page = URLDecoder.decode(page, StandardCharsets.UTF_8.name());
+		}
+		catch (UnsupportedEncodingException e)
+		{
+			// do nothing, keep page the same
+		}
+
+		// Spaces and underscores are the same in titles
+		final String title = page.replace('_', ' ').trim();
+
+		if (section != -1)
+		{
+			return fetchPageDataAsync(title, section);
+		}
+
+		return getPagesAsync(Collections.singletonList(title)).thenApply(entries ->
+		{
+			final MediaWikiCache.Entry entry = entries.get(title);
+			return entry == null ? "" : entry.getContent();
+		});
+	}
+
+	private CompletableFuture<String> getSpecialLookupTitleAsync(final String type, final int id)
 	{
 		final HttpUrl url = base.newBuilder()
 			.addPathSegment("w")
@@ -74,68 +279,667 @@ public class MediaWiki
 			.url(url)
 			.build();
 
-		try (final Response response = clientNoRedirect.newCall(request).execute())
+		return execute(clientNoRedirect, request, RequestThrottle.Priority.HIGH, response ->
+		{
+			if (!response.isRedirect())
+			{
+				metrics.counter("wiki.lookups.missing").increment();
+				return null;
+			}
+
+			return response.header("Location")
+				.replace(base.newBuilder().addPathSegment("w").build().toString() + "/", "");
+		});
+	}
+
+	private CompletableFuture<String> fetchPageDataAsync(final String page, final int section)
+	{
+		final HttpUrl.Builder urlBuilder = apiUrl()
+			.addQueryParameter("action", "parse")
+			.addQueryParameter("prop", "wikitext")
+			.addQueryParameter("redirects", "true")
+			.addQueryParameter("page", page.replaceAll(" ", "_"));
+
+		if (section != -1)
+		{
+			urlBuilder.addQueryParameter("section", String.valueOf(section));
+		}
+
+		final HttpUrl url = urlBuilder.build();
+
+		final Request request = new Request.Builder()
+			.url(url)
+			.build();
+
+		return execute(client, request, RequestThrottle.Priority.NORMAL, response ->
 		{
-			if (response.isRedirect())
+			if (!response.isSuccessful())
+			{
+				throw new IOException("Unexpected response " + response);
+			}
+
+			try (final JsonReader reader = jsonReader(response))
 			{
-				final String page = response.header("Location")
-					.replace(base.newBuilder().addPathSegment("w").build().toString() + "/", "");
-				return getPageData(page, section);
+				// Missing pages are reported as error without parse result
+				return Strings.nullToEmpty(MediaWikiResponse.readParseWikitext(reader));
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous variant of {@link #getPagesData(Collection)}, batches are fetched concurrently
+	 * @param pages page titles to fetch
+	 * @return future of map of requested page title to its wikitext, missing pages are omitted
+	 */
+	public CompletableFuture<Map<String, String>> getPagesDataAsync(final Collection<String> pages)
+	{
+		return getPagesAsync(pages).thenApply(entries -> Maps.transformValues(entries, MediaWikiCache.Entry::getContent));
+	}
+
+	/**
+	 * Asynchronous variant of {@link #getPages(Collection)}, batches are fetched concurrently
+	 * @param pages page titles to fetch
+	 * @return future of map of requested page title to its latest revision, missing pages are omitted
+	 */
+	public CompletableFuture<Map<String, MediaWikiCache.Entry>> getPagesAsync(final Collection<String> pages)
+	{
+		return getPagesAsync(pages, fetched -> {});
+	}
+
+	/**
+	 * Same as {@link #getPagesAsync(Collection)}, but reports pages as their batches complete
+	 * @param pages page titles to fetch
+	 * @param fetched called with number of requested pages fetched, taken from cache or found missing
+	 * @return future of map of requested page title to its latest revision, missing pages are omitted
+	 */
+	public CompletableFuture<Map<String, MediaWikiCache.Entry>> getPagesAsync(final Collection<String> pages, final IntConsumer fetched)
+	{
+		final Map<String, MediaWikiCache.Entry> out = new ConcurrentHashMap<>();
+		final Collection<String> titles = new LinkedHashSet<>();
+
+		for (String page : pages)
+		{
+			// Pipe is the title separator and cannot be part of a valid title anyway
+			if (!page.isEmpty() && page.indexOf('|') == -1)
+			{
+				titles.add(page);
 			}
 		}
-		catch (Exception e)
+
+		if (titles.size() < pages.size())
 		{
-			return "";
+			fetched.accept(pages.size() - titles.size());
 		}
 
-		return "";
+		// When caching, ask only for latest revisions first and then download just the pages that changed
+		final CompletableFuture<Collection<String>> changed = cache == null
+			? CompletableFuture.completedFuture(titles)
+			: getChangedPagesAsync(titles, out, fetched);
+
+		return changed
+			.thenCompose(changedTitles ->
+			{
+				final List<CompletableFuture<Void>> futures = new ArrayList<>();
+				final Map<String, CompletableFuture<MediaWikiCache.Entry>> owned = new HashMap<>();
+
+				for (String title : changedTitles)
+				{
+					// Pages already being fetched for another caller are shared instead of fetched again
+					final CompletableFuture<MediaWikiCache.Entry> future = new CompletableFuture<>();
+					final CompletableFuture<MediaWikiCache.Entry> existing = pagesInFlight.putIfAbsent(title, future);
+
+					if (existing == null)
+					{
+						owned.put(title, future);
+						continue;
+					}
+
+					metrics.counter("wiki.pages.shared").increment();
+
+					futures.add(existing.thenAccept(entry ->
+					{
+						fetched.accept(1);
+
+						if (entry != null)
+						{
+							out.put(title, entry);
+						}
+					}));
+				}
+
+				for (List<String> batch : Iterables.partition(owned.keySet(), MAX_TITLES_PER_QUERY))
+				{
+					futures.add(getBatchDataAsync(batch)
+						.whenComplete((entries, e) ->
+						{
+							for (String title : batch)
+							{
+								final CompletableFuture<MediaWikiCache.Entry> future = owned.get(title);
+								pagesInFlight.remove(title, future);
+
+								if (e != null)
+								{
+									future.completeExceptionally(e);
+								}
+								else
+								{
+									// Missing pages complete with null
+									final MediaWikiCache.Entry entry = entries.get(title);
+
+									if (entry == null)
+									{
+										metrics.counter("wiki.pages.empty").increment();
+									}
+
+									future.complete(entry);
+								}
+							}
+						})
+						.thenAccept(entries ->
+						{
+							entries.forEach((title, entry) ->
+							{
+								out.put(title, entry);
+
+								if (cache != null)
+								{
+									cache.put(title, entry);
+								}
+							});
+
+							fetched.accept(batch.size());
+						}));
+				}
+
+				return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+			})
+			.thenApply(v -> out);
 	}
 
-	public String getPageData(String page, int section)
+	/**
+	 * Asynchronous variant of {@link #getRevisions(Collection)}, batches are checked concurrently
+	 * @param pages page titles
+	 * @return future of map of requested page title to its latest revision id, missing pages are omitted
+	 */
+	public CompletableFuture<Map<String, Long>> getRevisionsAsync(final Collection<String> pages)
 	{
-		// decode html encoded page name
-		// ex: Mage%27s book -> Mage's_book
-		try
+		final Map<String, Long> revisions = new ConcurrentHashMap<>();
+		final List<CompletableFuture<Void>> futures = new ArrayList<>();
+		final Collection<String> titles = new LinkedHashSet<>();
+
+		for (String page : pages)
 		{
-			page = URLDecoder.decode(page, StandardCharsets.UTF_8.name());
+			if (!page.isEmpty() && page.indexOf('|') == -1)
+			{
+				titles.add(page);
+			}
 		}
-		catch (UnsupportedEncodingException e)
+
+		for (List<String> batch : Iterables.partition(titles, MAX_TITLES_PER_QUERY))
 		{
-			// do nothing, keep page the same
+			futures.add(getBatchRevisionsAsync(batch).thenAccept(revisions::putAll));
 		}
 
-		final HttpUrl.Builder urlBuilder = base.newBuilder()
-			.addPathSegment("api.php")
-			.addQueryParameter("action", "parse")
-			.addQueryParameter("format", "json")
-			.addQueryParameter("prop", "wikitext")
-			.addQueryParameter("redirects", "true")
-			.addQueryParameter("page", page.replaceAll(" ", "_"));
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+			.thenApply(v -> revisions);
+	}
 
-		if (section != -1)
+	public CompletableFuture<List<String>> getTemplateTransclusionsAsync(final String template)
+	{
+		final HttpUrl url = apiUrl()
+			.addQueryParameter("action", "query")
+			.addQueryParameter("list", "embeddedin")
+			.addQueryParameter("eititle", "Template:" + template)
+			.addQueryParameter("einamespace", "0")
+			.addQueryParameter("eilimit", "max")
+			.build();
+
+		final List<String> titles = Collections.synchronizedList(new ArrayList<>());
+
+		return queryContinued(url, RequestThrottle.Priority.HIGH, Collections.emptyMap(), queryResponse -> titles.addAll(queryResponse.embeddedIn))
+			.thenApply(v -> titles);
+	}
+
+	public CompletableFuture<Set<String>> getRecentChangesAsync(final Instant since)
+	{
+		final HttpUrl url = apiUrl()
+			.addQueryParameter("action", "query")
+			.addQueryParameter("list", "recentchanges")
+			.addQueryParameter("rcstart", DateTimeFormatter.ISO_INSTANT.format(since))
+			.addQueryParameter("rcdir", "newer")
+			.addQueryParameter("rcnamespace", "0")
+			.addQueryParameter("rctype", "edit|new|log")
+			.addQueryParameter("rcprop", "title")
+			.addQueryParameter("rclimit", "max")
+			.build();
+
+		final Set<String> titles = ConcurrentHashMap.newKeySet();
+
+		return queryContinued(url, RequestThrottle.Priority.HIGH, Collections.emptyMap(), queryResponse -> titles.addAll(queryResponse.recentChanges))
+			.thenApply(v -> titles);
+	}
+
+	/**
+	 * Compares latest revisions of pages with cached ones, reusing cached wikitext of unchanged pages
+	 * @param titles page titles to check
+	 * @param out map where unchanged cached pages are stored
+	 * @param fetched called with number of pages taken from cache or found missing
+	 * @return future of titles of pages that changed or are not cached yet
+	 */
+	private CompletableFuture<Collection<String>> getChangedPagesAsync(final Collection<String> titles, final Map<String, MediaWikiCache.Entry> out,
+		final IntConsumer fetched)
+	{
+		final List<String> changed = Collections.synchronizedList(new ArrayList<>());
+		final List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+		for (List<String> batch : Iterables.partition(titles, MAX_TITLES_PER_QUERY))
 		{
-			urlBuilder.addQueryParameter("section", String.valueOf(section));
+			futures.add(getBatchRevisionsAsync(batch)
+				.thenAccept(revisions ->
+				{
+					// Missing pages have no revision, they are done as well as unchanged ones
+					int done = batch.size() - revisions.size();
+
+					for (Map.Entry<String, Long> revision : revisions.entrySet())
+					{
+						final MediaWikiCache.Entry entry = cache.get(revision.getKey());
+
+						if (entry != null && entry.getRevision() == revision.getValue())
+						{
+							metrics.counter("wiki.cache.hits").increment();
+							out.put(revision.getKey(), entry);
+							done++;
+						}
+						else
+						{
+							metrics.counter("wiki.cache.misses").increment();
+							changed.add(revision.getKey());
+						}
+					}
+
+					fetched.accept(done);
+				})
+				.exceptionally(e ->
+				{
+					log.warn("Failed to check revisions of pages {}", batch, e);
+					changed.addAll(batch);
+					return null;
+				}));
 		}
 
-		final HttpUrl url = urlBuilder.build();
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+			.thenApply(v ->
+			{
+				log.debug("{} of {} pages changed since they were cached", changed.size(), titles.size());
+				return changed;
+			});
+	}
+
+	private CompletableFuture<Map<String, Long>> getBatchRevisionsAsync(final List<String> batch)
+	{
+		final HttpUrl url = apiUrl()
+			.addQueryParameter("action", "query")
+			.addQueryParameter("prop", "info")
+			.addQueryParameter("redirects", "true")
+			.addQueryParameter("titles", String.join("|", batch))
+			.build();
+
+		return query(url, RequestThrottle.Priority.HIGH).thenApply(queryResponse ->
+		{
+			final Map<String, Long> revisions = new HashMap<>();
+			final Map<String, Long> latest = new HashMap<>();
+
+			for (MediaWikiResponse.Page page : queryResponse.pages)
+			{
+				// Missing pages have no revision
+				if (page.lastRevision > 0)
+				{
+					latest.put(page.title, page.lastRevision);
+				}
+			}
+
+			for (String title : batch)
+			{
+				final Long revision = latest.get(resolveTitle(queryResponse.mappings, title));
+
+				if (revision != null)
+				{
+					revisions.put(title, revision);
+				}
+			}
+
+			return revisions;
+		});
+	}
+
+	private CompletableFuture<Map<String, MediaWikiCache.Entry>> getBatchDataAsync(final List<String> batch)
+	{
+		final HttpUrl url = apiUrl()
+			.addQueryParameter("action", "query")
+			.addQueryParameter("prop", "revisions")
+			.addQueryParameter("rvprop", "ids|content")
+			.addQueryParameter("redirects", "true")
+			.addQueryParameter("titles", String.join("|", batch))
+			.build();
 
+		// Continued queries run one after another, so plain maps are enough here
+		final Map<String, String> mappings = new HashMap<>();
+		final Map<String, MediaWikiCache.Entry> contents = new HashMap<>();
+
+		return queryContinued(url, RequestThrottle.Priority.NORMAL, Collections.emptyMap(), queryResponse ->
+		{
+			mappings.putAll(queryResponse.mappings);
+
+			for (MediaWikiResponse.Page page : queryResponse.pages)
+			{
+				if (page.content != null)
+				{
+					contents.put(page.title, new MediaWikiCache.Entry(page.revision, page.content));
+				}
+			}
+		})
+			.thenApply(v ->
+			{
+				final Map<String, MediaWikiCache.Entry> out = new HashMap<>();
+
+				for (String title : batch)
+				{
+					final MediaWikiCache.Entry content = contents.get(resolveTitle(mappings, title));
+
+					if (content != null)
+					{
+						out.put(title, content);
+					}
+				}
+
+				return out;
+			});
+	}
+
+	/**
+	 * Runs query and all of its continuations one after another
+	 * @param url query url without continuation parameters
+	 * @param priority priority of every request
+	 * @param continuation continuation parameters returned by previous query
+	 * @param consumer consumer of every response
+	 * @return future completed after last continuation was consumed
+	 */
+	private CompletableFuture<Void> queryContinued(final HttpUrl url, final RequestThrottle.Priority priority, final Map<String, String> continuation,
+		final Consumer<MediaWikiResponse> consumer)
+	{
+		final HttpUrl.Builder urlBuilder = url.newBuilder();
+		continuation.forEach(urlBuilder::addQueryParameter);
+
+		return query(urlBuilder.build(), priority).thenCompose(queryResponse ->
+		{
+			consumer.accept(queryResponse);
+
+			if (!queryResponse.hasQuery || queryResponse.continuation == null)
+			{
+				return CompletableFuture.completedFuture(null);
+			}
+
+			return queryContinued(url, priority, queryResponse.continuation, consumer);
+		});
+	}
+
+	private CompletableFuture<MediaWikiResponse> query(final HttpUrl url, final RequestThrottle.Priority priority)
+	{
 		final Request request = new Request.Builder()
 			.url(url)
 			.build();
 
-		try (final Response response = client.newCall(request).execute())
+		return execute(client, request, priority, response ->
 		{
-			if (response.isSuccessful())
+			if (!response.isSuccessful())
 			{
-				final InputStream in = response.body().byteStream();
-				return App.GSON.fromJson(new InputStreamReader(in), WikiResponse.class).parse.wikitext.get("*");
+				throw new IOException("Unexpected response " + response);
+			}
+
+			try (final JsonReader reader = jsonReader(response))
+			{
+				return MediaWikiResponse.readQuery(reader);
+			}
+		});
+	}
+
+	private <T> CompletableFuture<T> execute(final OkHttpClient client, final Request request, final RequestThrottle.Priority priority,
+		final ResponseHandler<T> handler)
+	{
+		final CompletableFuture<T> future = new CompletableFuture<>();
+
+		// Whole fetch as seen by the caller, including throttling, queueing and retries
+		final Metrics.Timer fetchTimer = metrics.timer("wiki.fetch");
+		final long fetchStart = fetchTimer.start();
+		future.whenComplete((result, e) -> fetchTimer.stop(fetchStart));
+
+		executeAttempt(client, request, priority, handler, future, 0);
+		return future;
+	}
+
+	/**
+	 * Waits for the throttle and enqueues request on the client dispatcher. Response is handled and closed
+	 * on the dispatcher thread. Throttled, failed and server error responses are retried with backoff.
+	 */
+	private <T> void executeAttempt(final OkHttpClient client, final Request request, final RequestThrottle.Priority priority,
+		final ResponseHandler<T> handler, final CompletableFuture<T> future, final int attempt)
+	{
+		final Metrics.Timer waitTimer = metrics.timer("wiki.throttle.wait");
+		final Metrics.Timer requestTimer = metrics.timer("wiki.request." + priority.name().toLowerCase());
+		final long waitStart = waitTimer.start();
+
+		final CompletableFuture<RequestThrottle.Permit> admission;
+
+		try
+		{
+			admission = throttle.acquire(priority, getRequestKind(request.url()));
+		}
+		catch (RuntimeException e)
+		{
+			future.completeExceptionally(e);
+			return;
+		}
+
+		admission.whenComplete((permit, throttleError) ->
+		{
+			if (throttleError != null)
+			{
+				future.completeExceptionally(throttleError);
+				return;
+			}
+
+			try
+			{
+				waitTimer.stop(waitStart);
+				metrics.counter("wiki.requests").increment();
+				final long requestStart = requestTimer.start();
+
+				client.newCall(request).enqueue(new Callback()
+				{
+					@Override
+					public void onFailure(final Call call, final IOException e)
+					{
+						requestTimer.stop(requestStart);
+						permit.failure();
+						retry(e, 0);
+					}
+
+					@Override
+					public void onResponse(final Call call, final Response response)
+					{
+						requestTimer.stop(requestStart);
+
+						try (final Response r = response)
+						{
+							final String apiError = r.header("MediaWiki-API-Error");
+
+							if (r.code() == 429 || r.code() == 503 || "maxlag".equals(apiError) || "ratelimited".equals(apiError))
+							{
+								final long retryAfter = getRetryAfterMillis(r);
+								metrics.counter("wiki.throttled").increment();
+								permit.throttled(retryAfter);
+								retry(new IOException("Throttled " + r), retryAfter);
+								return;
+							}
+
+							if (r.code() >= 500)
+							{
+								permit.failure();
+								retry(new IOException("Unexpected response " + r), 0);
+								return;
+							}
+
+							final T result;
+							final Metrics.Timer decodeTimer = metrics.timer("wiki.decode");
+							final long decodeStart = decodeTimer.start();
+
+							try
+							{
+								result = handler.handle(r);
+							}
+							catch (IOException e)
+							{
+								permit.failure();
+
+								// Body of successful response was cut off, other responses are handled by handler itself
+								if (r.isSuccessful())
+								{
+									retry(e, 0);
+								}
+								else
+								{
+									future.completeExceptionally(e);
+								}
+
+								return;
+							}
+
+							decodeTimer.stop(decodeStart);
+							permit.success();
+							future.complete(result);
+						}
+						catch (Exception e)
+						{
+							permit.failure();
+							future.completeExceptionally(e);
+						}
+					}
+
+					private void retry(final IOException cause, final long retryAfterMillis)
+					{
+						if (attempt + 1 >= MAX_ATTEMPTS)
+						{
+							metrics.counter("wiki.failures").increment();
+							future.completeExceptionally(new IOException("Giving up on " + request.url() + " after " + MAX_ATTEMPTS + " attempts", cause));
+							return;
+						}
+
+						// Full jitter exponential backoff, but never sooner than the server asked for
+						final long backoff = Math.min(MAX_BACKOFF_MILLIS, INITIAL_BACKOFF_MILLIS << attempt);
+						final long delay = Math.max(retryAfterMillis, ThreadLocalRandom.current().nextLong(backoff + 1));
+						log.debug("Retrying {} in {}ms: {}", request.url(), delay, cause.getMessage());
+						metrics.counter("wiki.retries").increment();
+
+						try
+						{
+							scheduler.schedule(() -> executeAttempt(client, request, priority, handler, future, attempt + 1), delay, TimeUnit.MILLISECONDS);
+						}
+						catch (RejectedExecutionException e)
+						{
+							future.completeExceptionally(e);
+						}
+					}
+				});
+			}
+			catch (RuntimeException e)
+			{
+				// Request was never sent, for example because the dispatcher was shut down
+				permit.cancel();
+				future.completeExceptionally(e);
+			}
+		});
+	}
+
+	/**
+	 * @return API module of the request, or the special page it requests, costs of requests differ by module
+	 */
+	private static String getRequestKind(final HttpUrl url)
+	{
+		for (String parameter : new String[]{"prop", "list", "action"})
+		{
+			final String value = url.queryParameter(parameter);
+
+			if (value != null)
+			{
+				return value;
 			}
 		}
-		catch (Exception e)
+
+		return url.encodedPath();
+	}
+
+	private static JsonReader jsonReader(final Response response)
+	{
+		// API always responds in UTF-8, decode it straight from the response source
+		return new JsonReader(new InputStreamReader(response.body().source().inputStream(), StandardCharsets.UTF_8));
+	}
+
+	private static long getRetryAfterMillis(final Response response)
+	{
+		final String retryAfter = response.header("Retry-After");
+
+		if (retryAfter == null)
+		{
+			return 0;
+		}
+
+		try
+		{
+			return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+		}
+		catch (NumberFormatException e)
+		{
+			// Can be also http date
+		}
+
+		try
+		{
+			final ZonedDateTime date = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+			return Math.max(0, date.toInstant().toEpochMilli() - System.currentTimeMillis());
+		}
+		catch (DateTimeParseException e)
 		{
-			return "";
+			return 0;
+		}
+	}
+
+	private HttpUrl.Builder apiUrl()
+	{
+		// Ask the API to refuse requests when database replication is lagging instead of making it worse
+		return base.newBuilder()
+			.addPathSegment("api.php")
+			.addQueryParameter("format", "json")
+			.addQueryParameter("maxlag", String.valueOf(MAX_LAG_SECONDS));
+	}
+
+	/**
+	 * Follows title normalizations and redirects reported by the API back to the final page title
+	 */
+	private static String resolveTitle(final Map<String, String> mappings, String title)
+	{
+		// Bound the walk so redirect loops can not hang us
+		for (int i = 0; i < 5; i++)
+		{
+			final String next = mappings.get(title);
+
+			if (next == null)
+			{
+				break;
+			}
+
+			title = next;
 		}
 
-		return "";
+		return title;
 	}
 }
@@ -0,0 +1,142 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import com.google.common.hash.Hashing;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import javax.annotation.Nullable;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.data.App;
+
+/**
+ * Persistent cache of whole page wikitext by title. Every entry remembers the revision it was fetched at, so callers only need to
+ * compare it with the latest revision of the page to know if it is still valid.
+ */
+@Slf4j
+public class MediaWikiCache
+{
+	@Value
+	public static class Entry
+	{
+		private final long revision;
+		private final String content;
+	}
+
+	private static final class StoredEntry
+	{
+		String title;
+		long revision;
+		String content;
+	}
+
+	private final File directory;
+
+	public MediaWikiCache(final File directory)
+	{
+		this.directory = directory;
+	}
+
+	@Nullable
+	public Entry get(final String title)
+	{
+		final File file = getFile(title);
+
+		if (!file.exists())
+		{
+			return null;
+		}
+
+		try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))
+		{
+			final StoredEntry stored = App.GSON.fromJson(reader, StoredEntry.class);
+
+			// Guard against hash collisions and truncated files
+			if (stored == null || stored.content == null || !title.equals(stored.title))
+			{
+				return null;
+			}
+
+			return new Entry(stored.revision, stored.content);
+		}
+		catch (Exception e)
+		{
+			log.warn("Failed to read cached page {}", title, e);
+			return null;
+		}
+	}
+
+	public void put(final String title, final Entry entry)
+	{
+		final File file = getFile(title);
+		final StoredEntry stored = new StoredEntry();
+		stored.title = title;
+		stored.revision = entry.getRevision();
+		stored.content = entry.getContent();
+
+		try
+		{
+			final Path dir = file.getParentFile().toPath();
+			Files.createDirectories(dir);
+
+			// Write to temporary file first so concurrent readers never see partially written entry
+			final Path tmp = Files.createTempFile(dir, file.getName(), ".tmp");
+
+			try
+			{
+				try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8))
+				{
+					App.GSON.toJson(stored, writer);
+				}
+
+				Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			finally
+			{
+				Files.deleteIfExists(tmp);
+			}
+		}
+		catch (IOException e)
+		{
+			log.warn("Failed to cache page {}", title, e);
+		}
+	}
+
+	private File getFile(final String title)
+	{
+		final String hash = Hashing.sha256()
+			.hashString(title, StandardCharsets.UTF_8)
+			.toString();
+
+		// Split entries into subdirectories to keep directory sizes reasonable
+		return new File(new File(directory, hash.substring(0, 2)), hash + ".json");
+	}
+}
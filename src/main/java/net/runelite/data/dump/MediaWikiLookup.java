@@ -0,0 +1,372 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bulk replacement for Special:Lookup. Fetches every page transcluding an infobox template once and indexes
+ * the ids declared in it, so dumpers can resolve ids to pages without any per-id requests.
+ */
+@Slf4j
+public class MediaWikiLookup
+{
+	private static final int MAX_VARIANTS_ON_PAGE = 50;
+
+	private final WikiSource wiki;
+	private final DumpProgress.Task progress;
+	private final Map<Integer, String> pageTitles;
+	private final Map<String, WikiPage> pages;
+	private final Map<String, Long> revisions;
+
+	/**
+	 * Ids declared on pages changed since the previous run or previously resolved to changed page,
+	 * empty when the lookup was built from all pages
+	 */
+	private final Set<Integer> changedIds;
+
+	private MediaWikiLookup(final WikiSource wiki, final DumpProgress.Task progress, final Map<Integer, String> pageTitles,
+		final Map<String, WikiPage> pages, final Map<String, Long> revisions, final Set<Integer> changedIds)
+	{
+		this.wiki = wiki;
+		this.progress = progress;
+		this.pageTitles = pageTitles;
+		this.pages = pages;
+		this.revisions = revisions;
+		this.changedIds = changedIds;
+	}
+
+	/**
+	 * Builds id to page index from all pages transcluding the template
+	 * @param wiki media wiki
+	 * @param template infobox template name, ex: Infobox Item
+	 * @param idParser extracts the ids declared on page from its templates
+	 * @param progress progress of the dumper, fetched pages are reported to it
+	 * @return lookup
+	 */
+	public static MediaWikiLookup build(final WikiSource wiki, final String template, final Function<WikiPage, Collection<Integer>> idParser,
+		final DumpProgress.Task progress)
+	{
+		final Collection<String> titles = wiki.getTemplateTransclusions(template);
+		log.info("Found {} pages transcluding {}", titles.size(), template);
+
+		final Map<String, Long> revisions = new HashMap<>();
+		final Map<String, WikiPage> pages = fetch(wiki, titles, revisions, progress);
+		final Map<Integer, String> pageTitles = new HashMap<>();
+
+		for (Map.Entry<String, WikiPage> page : pages.entrySet())
+		{
+			for (Integer id : idParser.apply(page.getValue()))
+			{
+				pageTitles.putIfAbsent(id, page.getKey());
+			}
+		}
+
+		log.info("Indexed {} ids on {} pages", pageTitles.size(), pages.size());
+		return new MediaWikiLookup(wiki, progress, pageTitles, pages, revisions, Collections.emptySet());
+	}
+
+	/**
+	 * Builds id to page index from pages changed since the previous run and page titles recorded by it.
+	 * Pages recorded by the previous run are changed when they are listed in recent changes or their latest revision
+	 * differs from the recorded one. Only the changed pages that are in the manifest or transclude the template are
+	 * fetched, pages of other ids can be fetched later by {@link #load(Collection)}.
+	 * @param wiki media wiki
+	 * @param template infobox template name, ex: Infobox Item
+	 * @param idParser extracts the ids declared on page from its templates
+	 * @param previous manifest of the previous run
+	 * @param recentChanges titles of pages listed in recent changes since the previous run
+	 * @param progress progress of the dumper, fetched pages are reported to it
+	 * @return lookup
+	 */
+	public static MediaWikiLookup buildIncremental(final WikiSource wiki, final String template, final Function<WikiPage, Collection<Integer>> idParser,
+		final DumpManifest previous, final Set<String> recentChanges, final DumpProgress.Task progress)
+	{
+		// Ids of one page can be recorded at different revisions, the page is then treated as changed
+		final Map<String, Long> recordedRevisions = new HashMap<>();
+
+		for (DumpManifest.Entry entry : previous.getEntries().values())
+		{
+			if (entry.getTitle() != null)
+			{
+				recordedRevisions.merge(entry.getTitle(), entry.getRevision(), (a, b) -> a.equals(b) ? a : 0L);
+			}
+		}
+
+		final Set<String> knownTitles = recordedRevisions.keySet();
+
+		// Recent changes miss edits older than the overlap with the previous run and pages that failed to load
+		// before, comparing revisions catches both and costs one small request per 50 pages
+		final Set<String> changedTitles = new HashSet<>(recentChanges);
+		final Map<String, Long> latestRevisions = wiki.getRevisions(knownTitles.stream()
+			.filter(title -> !recentChanges.contains(title))
+			.collect(Collectors.toList()));
+
+		for (Map.Entry<String, Long> recorded : recordedRevisions.entrySet())
+		{
+			final String title = recorded.getKey();
+			final long revision = recorded.getValue();
+
+			// Deleted pages have no latest revision and pages with unknown revision are always fetched again
+			if (!recentChanges.contains(title) && (revision == 0 || !Long.valueOf(revision).equals(latestRevisions.get(title))))
+			{
+				changedTitles.add(title);
+			}
+		}
+
+		if (changedTitles.size() > recentChanges.size())
+		{
+			log.info("{} recorded pages changed without being listed in recent changes", changedTitles.size() - recentChanges.size());
+		}
+
+		// Most changed pages have nothing to do with the template, listing its transclusions is far cheaper than fetching them
+		final Set<String> infoboxTitles = new HashSet<>();
+
+		for (String title : changedTitles)
+		{
+			if (knownTitles.contains(title))
+			{
+				infoboxTitles.add(title);
+			}
+		}
+
+		if (infoboxTitles.size() < changedTitles.size())
+		{
+			final Set<String> transclusions = new HashSet<>(wiki.getTemplateTransclusions(template));
+
+			for (String title : changedTitles)
+			{
+				if (transclusions.contains(title))
+				{
+					infoboxTitles.add(title);
+				}
+			}
+		}
+
+		log.info("{} of {} changed pages are {} pages", infoboxTitles.size(), changedTitles.size(), template);
+
+		final Map<String, Long> revisions = new HashMap<>();
+		final Map<String, WikiPage> pages = fetch(wiki, infoboxTitles, revisions, progress);
+		final Map<Integer, String> pageTitles = new HashMap<>();
+		final Set<Integer> changedIds = new HashSet<>();
+
+		// Changed pages take precedence, as the recorded titles may be out of date
+		for (Map.Entry<String, WikiPage> page : pages.entrySet())
+		{
+			for (Integer id : idParser.apply(page.getValue()))
+			{
+				pageTitles.putIfAbsent(id, page.getKey());
+				changedIds.add(id);
+			}
+		}
+
+		for (Map.Entry<Integer, DumpManifest.Entry> entry : previous.getEntries().entrySet())
+		{
+			final String title = entry.getValue().getTitle();
+
+			if (title == null)
+			{
+				continue;
+			}
+
+			// Changed page that no longer declares the id does not resolve to it any more
+			if (changedTitles.contains(title))
+			{
+				changedIds.add(entry.getKey());
+			}
+			else
+			{
+				pageTitles.putIfAbsent(entry.getKey(), title);
+			}
+		}
+
+		log.info("Indexed {} changed ids on {} changed pages", changedIds.size(), pages.size());
+		return new MediaWikiLookup(wiki, progress, pageTitles, pages, revisions, changedIds);
+	}
+
+	/**
+	 * Fetches pages of ids that are not loaded yet, not thread safe
+	 * @param ids ids to load pages for
+	 */
+	public void load(final Collection<Integer> ids)
+	{
+		final Set<String> titles = new HashSet<>();
+
+		for (Integer id : ids)
+		{
+			final String title = pageTitles.get(id);
+
+			if (title != null && !pages.containsKey(title))
+			{
+				titles.add(title);
+			}
+		}
+
+		if (!titles.isEmpty())
+		{
+			pages.putAll(fetch(wiki, titles, revisions, progress));
+			log.info("Loaded {} pages of {} ids", titles.size(), ids.size());
+		}
+	}
+
+	/**
+	 * Fetches and scans pages, every page is scanned once here and dumpers then only look up already indexed
+	 * templates. Pages are sorted, so ids declared on multiple pages always resolve to the same one
+	 */
+	private static Map<String, WikiPage> fetch(final WikiSource wiki, final Collection<String> titles, final Map<String, Long> revisions,
+		final DumpProgress.Task progress)
+	{
+		progress.fetching(titles.size());
+		final Map<String, MediaWikiCache.Entry> entries = wiki.getPages(titles, progress::fetched);
+		entries.forEach((title, entry) -> revisions.put(title, entry.getRevision()));
+
+		return entries.entrySet().parallelStream()
+			.collect(Collectors.toMap(Map.Entry::getKey, e -> WikiPage.parse(e.getValue().getContent()), (a, b) -> a, TreeMap::new));
+	}
+
+	/**
+	 * Collects ids from `id` and `id1` to `idN` keys of template, each value can be comma separated list of ids
+	 * @param template media wiki template
+	 * @return declared ids
+	 */
+	public static Set<Integer> parseIds(final MediaWikiTemplate template)
+	{
+		final Set<Integer> ids = new LinkedHashSet<>();
+		addIds(ids, template.getValue("id"));
+
+		for (int i = 1; i <= MAX_VARIANTS_ON_PAGE; i++)
+		{
+			final String key = "id" + i;
+
+			if (!template.containsKey(key))
+			{
+				break;
+			}
+
+			addIds(ids, template.getValue(key));
+		}
+
+		return ids;
+	}
+
+	private static void addIds(final Set<Integer> ids, @Nullable final String value)
+	{
+		if (value == null)
+		{
+			return;
+		}
+
+		for (String id : value.split(","))
+		{
+			try
+			{
+				ids.add(Integer.parseInt(id.trim()));
+			}
+			catch (NumberFormatException e)
+			{
+				// ignore hist and other non-numeric ids
+			}
+		}
+	}
+
+	@Nullable
+	public String getPageTitle(final int id)
+	{
+		return pageTitles.get(id);
+	}
+
+	/**
+	 * @return true if id is declared on page changed since the previous run or its page changed
+	 */
+	public boolean isChanged(final int id)
+	{
+		return changedIds.contains(id);
+	}
+
+	/**
+	 * @param title page title
+	 * @return revision of loaded page or 0 if it is not loaded
+	 */
+	public long getRevision(final String title)
+	{
+		return revisions.getOrDefault(title, 0L);
+	}
+
+	/**
+	 * Creates manifest entry for id dumped from page
+	 * @param title page title, null if there is none
+	 * @param definitionHash hash of cache definition inputs
+	 * @return manifest entry
+	 */
+	public DumpManifest.Entry createManifestEntry(@Nullable final String title, final String definitionHash)
+	{
+		return new DumpManifest.Entry(title, title == null ? 0 : getRevision(title), definitionHash);
+	}
+
+	/**
+	 * Brings manifest entries of the run up to date with the loaded pages. Entries of loaded pages get their current
+	 * revision, ids declared on loaded pages without an entry remember their page with empty definition hash, so they
+	 * are dumped once they are in cache, and ids without page are left out, so the next run resolves them again.
+	 * @param entries manifest entries by id
+	 */
+	public void updateManifestEntries(final Map<Integer, DumpManifest.Entry> entries)
+	{
+		entries.values().removeIf(entry -> entry.getTitle() == null);
+		entries.replaceAll((id, entry) -> pages.containsKey(entry.getTitle())
+			? new DumpManifest.Entry(entry.getTitle(), getRevision(entry.getTitle()), entry.getDefinitionHash())
+			: entry);
+
+		pageTitles.forEach((id, title) ->
+		{
+			if (pages.containsKey(title))
+			{
+				entries.putIfAbsent(id, createManifestEntry(title, ""));
+			}
+		});
+	}
+
+	@Nullable
+	public WikiPage getPage(final String title)
+	{
+		return pages.get(title);
+	}
+
+	@Nullable
+	public WikiPage getPage(final int id)
+	{
+		final String title = pageTitles.get(id);
+		return title == null ? null : pages.get(title);
+	}
+}
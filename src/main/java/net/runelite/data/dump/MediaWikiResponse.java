@@ -0,0 +1,320 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Streaming decoder of MediaWiki API responses. Reads only the values we use straight from the token stream
+ * and skips everything else, so no intermediate object graph is created for the (potentially huge) responses.
+ */
+final class MediaWikiResponse
+{
+	static final class Page
+	{
+		String title;
+		long lastRevision;
+		long revision;
+		String content;
+	}
+
+	/**
+	 * Normalized and redirected titles mapped to their target titles
+	 */
+	final Map<String, String> mappings = new HashMap<>();
+	final List<Page> pages = new ArrayList<>();
+	final List<String> embeddedIn = new ArrayList<>();
+	final List<String> recentChanges = new ArrayList<>();
+
+	/**
+	 * Parameters for continuing the query, null when query is complete
+	 */
+	@Nullable
+	Map<String, String> continuation;
+
+	boolean hasQuery;
+
+	private MediaWikiResponse()
+	{
+	}
+
+	/**
+	 * Reads `parse.wikitext.*` of action=parse response
+	 * @return wikitext or null when page does not exist
+	 */
+	@Nullable
+	static String readParseWikitext(final JsonReader reader) throws IOException
+	{
+		String wikitext = null;
+		reader.beginObject();
+
+		while (reader.hasNext())
+		{
+			if (!reader.nextName().equals("parse"))
+			{
+				reader.skipValue();
+				continue;
+			}
+
+			reader.beginObject();
+
+			while (reader.hasNext())
+			{
+				if (!reader.nextName().equals("wikitext"))
+				{
+					reader.skipValue();
+					continue;
+				}
+
+				reader.beginObject();
+
+				while (reader.hasNext())
+				{
+					if (reader.nextName().equals("*"))
+					{
+						wikitext = reader.nextString();
+					}
+					else
+					{
+						reader.skipValue();
+					}
+				}
+
+				reader.endObject();
+			}
+
+			reader.endObject();
+		}
+
+		reader.endObject();
+		return wikitext;
+	}
+
+	/**
+	 * Reads action=query response with titles, revisions, info, embeddedin and recentchanges results
+	 */
+	static MediaWikiResponse readQuery(final JsonReader reader) throws IOException
+	{
+		final MediaWikiResponse response = new MediaWikiResponse();
+		reader.beginObject();
+
+		while (reader.hasNext())
+		{
+			switch (reader.nextName())
+			{
+				case "query":
+					response.hasQuery = true;
+					response.readQueryBody(reader);
+					break;
+				case "continue":
+					response.continuation = readStringMap(reader);
+					break;
+				default:
+					reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+		return response;
+	}
+
+	private void readQueryBody(final JsonReader reader) throws IOException
+	{
+		reader.beginObject();
+
+		while (reader.hasNext())
+		{
+			switch (reader.nextName())
+			{
+				case "normalized":
+				case "redirects":
+					readMappings(reader);
+					break;
+				case "pages":
+					reader.beginObject();
+
+					while (reader.hasNext())
+					{
+						// Pages are keyed by page id, which is also part of the page itself
+						reader.nextName();
+						pages.add(readPage(reader));
+					}
+
+					reader.endObject();
+					break;
+				case "embeddedin":
+					reader.beginArray();
+
+					while (reader.hasNext())
+					{
+						embeddedIn.add(readPage(reader).title);
+					}
+
+					reader.endArray();
+					break;
+				case "recentchanges":
+					reader.beginArray();
+
+					while (reader.hasNext())
+					{
+						recentChanges.add(readPage(reader).title);
+					}
+
+					reader.endArray();
+					break;
+				default:
+					reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+	}
+
+	private void readMappings(final JsonReader reader) throws IOException
+	{
+		reader.beginArray();
+
+		while (reader.hasNext())
+		{
+			String from = null;
+			String to = null;
+			reader.beginObject();
+
+			while (reader.hasNext())
+			{
+				switch (reader.nextName())
+				{
+					case "from":
+						from = reader.nextString();
+						break;
+					case "to":
+						to = reader.nextString();
+						break;
+					default:
+						reader.skipValue();
+				}
+			}
+
+			reader.endObject();
+
+			if (from != null && to != null)
+			{
+				mappings.put(from, to);
+			}
+		}
+
+		reader.endArray();
+	}
+
+	private static Page readPage(final JsonReader reader) throws IOException
+	{
+		final Page page = new Page();
+		reader.beginObject();
+
+		while (reader.hasNext())
+		{
+			switch (reader.nextName())
+			{
+				case "title":
+					page.title = reader.nextString();
+					break;
+				case "lastrevid":
+					page.lastRevision = reader.nextLong();
+					break;
+				case "revisions":
+					reader.beginArray();
+
+					// Only the latest revision is requested
+					if (reader.hasNext())
+					{
+						readRevision(reader, page);
+					}
+
+					while (reader.hasNext())
+					{
+						reader.skipValue();
+					}
+
+					reader.endArray();
+					break;
+				default:
+					reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+		return page;
+	}
+
+	private static void readRevision(final JsonReader reader, final Page page) throws IOException
+	{
+		reader.beginObject();
+
+		while (reader.hasNext())
+		{
+			switch (reader.nextName())
+			{
+				case "revid":
+					page.revision = reader.nextLong();
+					break;
+				case "*":
+					page.content = reader.nextString();
+					break;
+				default:
+					reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+	}
+
+	private static Map<String, String> readStringMap(final JsonReader reader) throws IOException
+	{
+		final Map<String, String> map = new HashMap<>();
+		reader.beginObject();
+
+		while (reader.hasNext())
+		{
+			final String name = reader.nextName();
+
+			if (reader.peek() == JsonToken.NULL)
+			{
+				reader.skipValue();
+				continue;
+			}
+
+			map.put(name, reader.nextString());
+		}
+
+		reader.endObject();
+		return map;
+	}
+}
@@ -23,18 +23,15 @@
  */
 package net.runelite.data.dump;
 
+import com.google.common.base.CharMatcher;
 import com.google.common.base.Function;
-import com.google.common.base.MoreObjects;
 import com.google.common.base.Strings;
-import java.util.AbstractMap;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import javax.annotation.Nullable;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.petitparser.context.Result;
+import org.petitparser.context.Token;
 import org.petitparser.parser.Parser;
 import org.petitparser.parser.primitive.CharacterParser;
 import org.petitparser.parser.primitive.StringParser;
@@ -43,21 +40,36 @@ import org.petitparser.parser.primitive.StringParser;
 public class MediaWikiTemplate
 {
 	private static final Parser LUA_PARSER;
-	private static final Parser MEDIAWIKI_PARSER;
+	private static final Parser LUA_ERROR_PARSER;
+	private static final Metrics.Timer LUA_TIMER = Metrics.global().timer("parse.lua");
+	private static final Metrics.Counter PARSE_FAILURES = Metrics.global().counter("parse.failures");
+	private static final CharMatcher ANGLE_BRACKETS = CharMatcher.anyOf("<>");
+
+	/**
+	 * Largest mantissa and power of ten that are exact as double, so their quotient is correctly rounded
+	 */
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+		1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
 
 	static
 	{
-		final Parser singleString = CharacterParser.of('\'').seq(CharacterParser.of('\'').neg().plus().flatten()).seq(CharacterParser.of('\''));
-		final Parser doubleString = CharacterParser.of('"').seq(CharacterParser.of('"').neg().plus().flatten()).seq(CharacterParser.of('"'));
+		final Parser singleString = CharacterParser.of('\'').seq(CharacterParser.of('\'').neg().plus().token()).seq(CharacterParser.of('\''));
+		final Parser doubleString = CharacterParser.of('"').seq(CharacterParser.of('"').neg().plus().token()).seq(CharacterParser.of('"'));
 		final Parser string = singleString.or(doubleString).pick(1);
 
-		final Parser key = CharacterParser.letter().or(CharacterParser.of('-')).or(CharacterParser.of('_')).or(CharacterParser.of(' ')).or(CharacterParser.digit()).plus().flatten();
+		final Parser key = CharacterParser.letter().or(CharacterParser.of('-')).or(CharacterParser.of('_')).or(CharacterParser.of(' ')).or(CharacterParser.digit()).plus().token();
 		final Parser value = string.or(key);
 
+		// Pairs are parsed to offsets of key and value tokens, same as the wikitext parameters
 		final Parser pair = key.trim()
 			.seq(CharacterParser.of('=').trim())
 			.seq(value.trim())
-			.map((Function<List<String>, Map.Entry<String, String>>) input -> new AbstractMap.SimpleEntry<>(input.get(0).trim(), input.get(2).trim()));
+			.map((Function<List<Token>, int[]>) input -> new int[]{
+				input.get(0).getStart(), input.get(0).getStop(), input.get(2).getStart(), input.get(2).getStop()
+			});
 
 		final Parser commaLine = pair
 			.seq(CharacterParser.of(',').optional().trim())
@@ -69,67 +81,45 @@ public class MediaWikiTemplate
 			.seq(CharacterParser.of('}'))
 			.pick(2);
 
-		final Parser wikiValue = CharacterParser.of('|')
-			.or(StringParser.of("}}"))
-			.or(StringParser.of("{{"))
-			.or(StringParser.of("]]"))
-			.or(StringParser.of("[["))
-			.neg().plus().trim();
-
-		final Parser wikiBraceExpression = StringParser.of("{{")
-			.seq(StringParser.of("}}").neg().star().trim())
-			.seq(StringParser.of("}}"));
-
-		final Parser wikiSquareExpression = StringParser.of("[[")
-			.seq(StringParser.of("]]").neg().star().trim())
-			.seq(StringParser.of("]]"));
-
-		final Parser notOrPair = key.trim()
-			.seq(CharacterParser.of('=').trim())
-			.seq(CharacterParser.whitespace().star().seq(wikiSquareExpression.or(wikiBraceExpression).or(wikiValue)).plus().flatten().trim().optional())
-			.map((Function<List<String>, Map.Entry<String, String>>) input -> new AbstractMap.SimpleEntry<>(
-				input.get(0).trim(),
-				MoreObjects.firstNonNull(input.get(2), "").trim()));
-
-		final Parser orLine = CharacterParser.of('|')
-			.seq(notOrPair.trim().optional())
-			.pick(1);
-
-		MEDIAWIKI_PARSER = orLine.plus().trim().seq(StringParser.of("}}")).pick(0);
+		// Only used to report where the module failed to parse
+		LUA_ERROR_PARSER = StringParser.of("return")
+			.neg()
+			.star()
+			.seq(LUA_PARSER)
+			.seq(CharacterParser.any());
 	}
 
 	@Nullable
-	public static MediaWikiTemplate parseWikitext(final String name, final String data)
+	public static MediaWikiTemplate parseWikitext(final String name, final CharSequence data)
 	{
-		final Pattern exactNameTest = Pattern.compile("\\{\\{\\s*" + name + "\\s*\\|", Pattern.CASE_INSENSITIVE);
-		final Matcher m = exactNameTest.matcher(data.toLowerCase());
-
-		// Early exit
-		if (!m.find())
-		{
-			return null;
-		}
+		return TemplateMatcher.of(name).parse(data);
+	}
 
-		final Map<String, String> out = new HashMap<>();
-		final Parser wikiParser = StringParser.of("{{")
-			.seq(StringParser.ofIgnoringCase(name).trim())
-			.seq(MEDIAWIKI_PARSER)
-			.pick(2);
+	/**
+	 * Creates template from scanned template call, the template keeps reference to data instead of copying the values
+	 * @param data text the template was scanned from
+	 * @param template scanned template
+	 * @return media wiki template
+	 */
+	static MediaWikiTemplate of(final CharSequence data, final WikitextScanner.Template template)
+	{
+		return new MediaWikiTemplate(data, template.parameters, template.parameterCount, template.start, template.end);
+	}
 
-		final List<Object> parsed = wikiParser.matchesSkipping(data);
+	@Nullable
+	public static MediaWikiTemplate parseLua(final String data)
+	{
+		final long start = LUA_TIMER.start();
+		final List<Object> parsed = LUA_PARSER.matchesSkipping(data);
+		LUA_TIMER.stop(start);
 
 		if (parsed.isEmpty())
 		{
-			final Result parse = StringParser.of("{{")
-				.seq(StringParser.ofIgnoringCase(name).trim())
-				.neg()
-				.star()
-				.seq(wikiParser)
-				.seq(CharacterParser.any().star())
-				.parse(data);
+			final Result parse = LUA_ERROR_PARSER.parse(data);
 
 			if (!parse.isSuccess())
 			{
+				PARSE_FAILURES.increment();
 				log.warn("Failed to parse: {}", data);
 				log.warn("Error message: {}", parse.getMessage());
 			}
@@ -137,86 +127,123 @@ public class MediaWikiTemplate
 			return null;
 		}
 
-		final List<Map.Entry<String, String>> entries = (List<Map.Entry<String, String>>) parsed.get(0);
+		final List<int[]> entries = (List<int[]>) parsed.get(0);
+		final int[] parameters = new int[entries.size() * 4];
+		int count = 0;
 
-		for (Map.Entry<String, String> entry : entries)
+		for (int[] entry : entries)
 		{
-			if (entry == null)
-			{
-				continue;
-			}
-
-			out.put(entry.getKey(), entry.getValue());
+			final int keyStart = WikitextScanner.skipWhitespace(data, entry[0], entry[1]);
+			final int valueStart = WikitextScanner.skipWhitespace(data, entry[2], entry[3]);
+			final int offset = count++ * 4;
+			parameters[offset] = keyStart;
+			parameters[offset + 1] = WikitextScanner.trimEnd(data, keyStart, entry[1]);
+			parameters[offset + 2] = valueStart;
+			parameters[offset + 3] = WikitextScanner.trimEnd(data, valueStart, entry[3]);
 		}
 
-		if (out.isEmpty())
+		if (count == 0)
 		{
 			return null;
 		}
 
-		return new MediaWikiTemplate(out);
+		return new MediaWikiTemplate(data, parameters, count, 0, data.length());
 	}
 
-	@Nullable
-	public static MediaWikiTemplate parseLua(final String data)
+	/**
+	 * Source text the parameter offsets point to
+	 */
+	private final CharSequence text;
+
+	/**
+	 * 4 offsets per parameter, key start and end and trimmed value start and end
+	 */
+	private final int[] parameters;
+	private final int parameterCount;
+
+	/**
+	 * Open addressing table of parameter index + 1 by key hash, 0 is empty slot
+	 */
+	private final int[] keyTable;
+
+	/**
+	 * Offset of the template start in source text
+	 */
+	@Getter
+	private final int start;
+
+	/**
+	 * Offset just past the template end in source text
+	 */
+	@Getter
+	private final int end;
+
+	private MediaWikiTemplate(final CharSequence text, final int[] parameters, final int parameterCount, final int start, final int end)
 	{
-		final Map<String, String> out = new HashMap<>();
-		final List<Object> parsed = LUA_PARSER.matchesSkipping(data);
+		this.text = text;
+		this.parameters = parameters;
+		this.parameterCount = parameterCount;
+		this.start = start;
+		this.end = end;
 
-		if (parsed.isEmpty())
+		final int[] table = new int[Integer.highestOneBit(Math.max(1, parameterCount)) << 2];
+		final int mask = table.length - 1;
+
+		for (int i = 0; i < parameterCount; i++)
 		{
-			final Result parse = StringParser.of("return")
-				.neg()
-				.star()
-				.seq(LUA_PARSER)
-				.seq(CharacterParser.any()).parse(data);
+			int slot = hash(parameters[i * 4], parameters[i * 4 + 1]) & mask;
 
-			if (!parse.isSuccess())
+			// Later duplicate key replaces the earlier one, same as when it was put to map
+			while (table[slot] != 0 && !keyEquals(table[slot] - 1, i))
 			{
-				log.warn("Failed to parse: {}", data);
-				log.warn("Error message: {}", parse.getMessage());
+				slot = (slot + 1) & mask;
 			}
 
-			return null;
+			table[slot] = i + 1;
 		}
 
-		final List<Map.Entry<String, String>> entries = (List<Map.Entry<String, String>>) parsed.get(0);
-
-		for (Map.Entry<String, String> entry : entries)
-		{
-			out.put(entry.getKey(), entry.getValue());
-		}
-
-		if (out.isEmpty())
-		{
-			return null;
-		}
-
-		return new MediaWikiTemplate(out);
+		this.keyTable = table;
 	}
 
-	private final Map<String, String> map;
-
-	private MediaWikiTemplate(final Map<String, String> map)
+	/**
+	 * Checks if other template is nested inside this one
+	 * @param other template from the same source text
+	 * @return true if other template is enclosed by this template
+	 */
+	public boolean contains(final MediaWikiTemplate other)
 	{
-		this.map = map;
+		return other != this && start <= other.start && other.end <= end;
 	}
 
 	public String getValue(final String key)
 	{
-		String val = map.get(key);
+		final int index = indexOf(key);
+
+		if (index < 0)
+		{
+			return null;
+		}
+
+		final int valueStart = parameters[index * 4 + 2];
+		final int valueEnd = parameters[index * 4 + 3];
 
-		if (Strings.isNullOrEmpty(val) ||
-			val.equalsIgnoreCase("no") ||
-			val.equalsIgnoreCase("n/a") ||
-			val.equals("nil") ||
-			val.equalsIgnoreCase("varies"))
+		if (valueStart == valueEnd ||
+			WikitextScanner.regionMatchesIgnoreCase(text, valueStart, valueEnd, "no") ||
+			WikitextScanner.regionMatchesIgnoreCase(text, valueStart, valueEnd, "n/a") ||
+			regionEquals(valueStart, valueEnd, "nil") ||
+			WikitextScanner.regionMatchesIgnoreCase(text, valueStart, valueEnd, "varies"))
 		{
 			return null;
 		}
 
-		val = val.replace("kg", "").replaceAll("[><]", "");
-		return Strings.isNullOrEmpty(val) ? null : val;
+		String val = text.subSequence(valueStart, valueEnd).toString();
+
+		if (val.indexOf('k') >= 0 || ANGLE_BRACKETS.matchesAnyOf(val))
+		{
+			val = ANGLE_BRACKETS.removeFrom(val.replace("kg", ""));
+		}
+
+		return val.isEmpty() ? null : val;
 	}
 
 	public Boolean getBoolean(final String key)
@@ -227,6 +254,19 @@ public class MediaWikiTemplate
 
 	public Double getDouble(final String key)
 	{
+		final int index = indexOf(key);
+
+		if (index >= 0)
+		{
+			// Plain decimal numbers are parsed straight from source text
+			final double v = parseDouble(parameters[index * 4 + 2], parameters[index * 4 + 3]);
+
+			if (!Double.isNaN(v))
+			{
+				return v != 0 ? v : null;
+			}
+		}
+
 		final String val = getValue(key);
 
 		if (Strings.isNullOrEmpty(val))
@@ -248,6 +288,19 @@ public class MediaWikiTemplate
 
 	public Integer getInt(final String key)
 	{
+		final int index = indexOf(key);
+
+		if (index >= 0)
+		{
+			// Plain integers are parsed straight from source text
+			final long v = parseInt(parameters[index * 4 + 2], parameters[index * 4 + 3]);
+
+			if (v != Long.MIN_VALUE)
+			{
+				return v != 0 ? (int) v : null;
+			}
+		}
+
 		final String val = getValue(key);
 
 		if (Strings.isNullOrEmpty(val))
@@ -269,6 +322,174 @@ public class MediaWikiTemplate
 
 	public boolean containsKey(final String key)
 	{
-		return map.containsKey(key);
+		return indexOf(key) >= 0;
+	}
+
+	private int indexOf(final String key)
+	{
+		final int mask = keyTable.length - 1;
+		int slot = key.hashCode() & mask;
+
+		while (keyTable[slot] != 0)
+		{
+			final int index = keyTable[slot] - 1;
+
+			if (regionEquals(parameters[index * 4], parameters[index * 4 + 1], key))
+			{
+				return index;
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Hashes char range the same way as {@link String#hashCode()}, so lookups can use the cached key hash
+	 */
+	private int hash(final int from, final int to)
+	{
+		int h = 0;
+
+		for (int i = from; i < to; i++)
+		{
+			h = 31 * h + text.charAt(i);
+		}
+
+		return h;
+	}
+
+	private boolean keyEquals(final int a, final int b)
+	{
+		final int aStart = parameters[a * 4];
+		final int bStart = parameters[b * 4];
+		final int length = parameters[a * 4 + 1] - aStart;
+
+		if (length != parameters[b * 4 + 1] - bStart)
+		{
+			return false;
+		}
+
+		for (int i = 0; i < length; i++)
+		{
+			if (text.charAt(aStart + i) != text.charAt(bStart + i))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private boolean regionEquals(final int from, final int to, final String value)
+	{
+		if (to - from != value.length())
+		{
+			return false;
+		}
+
+		for (int i = 0; i < value.length(); i++)
+		{
+			if (text.charAt(from + i) != value.charAt(i))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Parses optionally signed integer from char range
+	 * @return parsed value or {@link Long#MIN_VALUE} if the range is not a plain int
+	 */
+	private long parseInt(final int from, final int to)
+	{
+		int i = from;
+		final boolean negative = i < to && text.charAt(i) == '-';
+
+		if (i < to && (text.charAt(i) == '-' || text.charAt(i) == '+'))
+		{
+			i++;
+		}
+
+		// Longer numbers may overflow, leave them to Integer.parseInt
+		if (i == to || to - i > 9)
+		{
+			return Long.MIN_VALUE;
+		}
+
+		long v = 0;
+
+		for (; i < to; i++)
+		{
+			final char c = text.charAt(i);
+
+			if (c < '0' || c > '9')
+			{
+				return Long.MIN_VALUE;
+			}
+
+			v = v * 10 + (c - '0');
+		}
+
+		return negative ? -v : v;
+	}
+
+	/**
+	 * Parses optionally signed decimal number without exponent from char range
+	 * @return parsed value or NaN if the range is not a plain decimal number or can not be parsed exactly
+	 */
+	private double parseDouble(final int from, final int to)
+	{
+		int i = from;
+		final boolean negative = i < to && text.charAt(i) == '-';
+
+		if (i < to && (text.charAt(i) == '-' || text.charAt(i) == '+'))
+		{
+			i++;
+		}
+
+		long mantissa = 0;
+		int digits = 0;
+		int fraction = -1;
+
+		for (; i < to; i++)
+		{
+			final char c = text.charAt(i);
+
+			if (c == '.' && fraction < 0)
+			{
+				fraction = 0;
+				continue;
+			}
+
+			if (c < '0' || c > '9')
+			{
+				return Double.NaN;
+			}
+
+			mantissa = mantissa * 10 + (c - '0');
+			digits++;
+
+			if (fraction >= 0)
+			{
+				fraction++;
+			}
+
+			if (mantissa >= MAX_EXACT_MANTISSA)
+			{
+				return Double.NaN;
+			}
+		}
+
+		if (digits == 0 || fraction >= POWERS_OF_TEN.length)
+		{
+			return Double.NaN;
+		}
+
+		final double v = fraction > 0 ? mantissa / POWERS_OF_TEN[fraction] : mantissa;
+		return negative ? -v : v;
 	}
 }
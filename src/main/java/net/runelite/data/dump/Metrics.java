@@ -0,0 +1,363 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.data.App;
+
+/**
+ * Registry of run metrics: timers with latency histograms, counters and gauges. All of them are lock free, so they
+ * can be updated from any thread on hot paths. Metrics are created on first use and exported at the end of the run as
+ * JSON or Prometheus text, and as a periodic status line.
+ */
+@Slf4j
+public class Metrics
+{
+	private static final Metrics GLOBAL = new Metrics();
+
+	/**
+	 * Histogram buckets per doubling of duration, bucket bounds are about 19% apart
+	 */
+	private static final int BUCKETS_PER_DOUBLING = 4;
+	private static final int BUCKETS = 48 * BUCKETS_PER_DOUBLING;
+
+	public static final class Counter
+	{
+		private final LongAdder value = new LongAdder();
+
+		public void increment()
+		{
+			value.increment();
+		}
+
+		public void add(final long delta)
+		{
+			value.add(delta);
+		}
+
+		public long get()
+		{
+			return value.sum();
+		}
+
+		private void reset()
+		{
+			value.reset();
+		}
+	}
+
+	public static final class Timer
+	{
+		private final LongAdder count = new LongAdder();
+		private final LongAdder total = new LongAdder();
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+		private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+		/**
+		 * @return start time to pass to {@link #stop(long)}
+		 */
+		public long start()
+		{
+			return System.nanoTime();
+		}
+
+		/**
+		 * Records time elapsed since start
+		 * @param start value returned by {@link #start()}
+		 */
+		public void stop(final long start)
+		{
+			record(System.nanoTime() - start);
+		}
+
+		public void record(final long nanos)
+		{
+			count.increment();
+			total.add(nanos);
+			max.accumulate(nanos);
+			buckets.incrementAndGet(bucket(nanos));
+		}
+
+		public long getCount()
+		{
+			return count.sum();
+		}
+
+		public long getTotalNanos()
+		{
+			return total.sum();
+		}
+
+		public long getMaxNanos()
+		{
+			return max.get();
+		}
+
+		/**
+		 * @param quantile quantile between 0 and 1
+		 * @return upper bound of the histogram bucket of the quantile, in nanos
+		 */
+		public long getQuantileNanos(final double quantile)
+		{
+			final long[] counts = new long[BUCKETS];
+			long sum = 0;
+
+			for (int i = 0; i < BUCKETS; i++)
+			{
+				counts[i] = buckets.get(i);
+				sum += counts[i];
+			}
+
+			if (sum == 0)
+			{
+				return 0;
+			}
+
+			final long rank = Math.max(1, (long) Math.ceil(quantile * sum));
+			long seen = 0;
+
+			for (int i = 0; i < BUCKETS; i++)
+			{
+				seen += counts[i];
+
+				if (seen >= rank)
+				{
+					return Math.min(getMaxNanos(), (long) Math.pow(2, (i + 1) / (double) BUCKETS_PER_DOUBLING));
+				}
+			}
+
+			return getMaxNanos();
+		}
+
+		private void reset()
+		{
+			count.reset();
+			total.reset();
+			max.reset();
+
+			for (int i = 0; i < BUCKETS; i++)
+			{
+				buckets.set(i, 0);
+			}
+		}
+
+		private static int bucket(final long nanos)
+		{
+			if (nanos <= 1)
+			{
+				return 0;
+			}
+
+			final int bucket = (int) (Math.log(nanos) / Math.log(2) * BUCKETS_PER_DOUBLING);
+			return Math.min(BUCKETS - 1, bucket);
+		}
+	}
+
+	@Getter
+	private volatile long started = System.currentTimeMillis();
+	private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+	/**
+	 * Parsers ({@link WikiPage}, {@link MediaWikiTemplate} and {@link TemplateMatcher}) are static and have no registry
+	 * passed to them, so parse timers and failures are always recorded here, whatever registry the dump uses.
+	 * Runs sharing one JVM should {@link #reset()} it in between.
+	 * @return registry shared by the whole run
+	 */
+	public static Metrics global()
+	{
+		return GLOBAL;
+	}
+
+	/**
+	 * Zeroes all counters and timers and restarts the run duration. Metrics stay registered, so references held by
+	 * callers keep working. Gauges are left as they are.
+	 */
+	public void reset()
+	{
+		started = System.currentTimeMillis();
+		counters.values().forEach(Counter::reset);
+		timers.values().forEach(Timer::reset);
+	}
+
+	public Counter counter(final String name)
+	{
+		return counters.computeIfAbsent(name, k -> new Counter());
+	}
+
+	public Timer timer(final String name)
+	{
+		return timers.computeIfAbsent(name, k -> new Timer());
+	}
+
+	/**
+	 * Registers gauge, replacing previous gauge of the same name
+	 * @param name gauge name
+	 * @param value supplier of current value, called only when metrics are exported
+	 */
+	public void gauge(final String name, final LongSupplier value)
+	{
+		gauges.put(name, value);
+	}
+
+	/**
+	 * @return one line summary of all counters, gauges and timer counts
+	 */
+	public String getStatusLine()
+	{
+		final StringBuilder line = new StringBuilder();
+		line.append(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - started)).append('s');
+		new TreeMap<>(counters).forEach((name, counter) -> line.append(' ').append(name).append('=').append(counter.get()));
+		new TreeMap<>(gauges).forEach((name, gauge) -> line.append(' ').append(name).append('=').append(gauge.getAsLong()));
+		new TreeMap<>(timers).forEach((name, timer) -> line.append(' ').append(name).append('=').append(timer.getCount())
+			.append('/').append(formatMillis(timer.getQuantileNanos(0.5))).append("ms"));
+		return line.toString();
+	}
+
+	/**
+	 * Writes summary of all metrics, Prometheus text format when file name ends with .prom, JSON otherwise
+	 * @param file summary file, replaced atomically
+	 * @throws IOException when writing fails
+	 */
+	public void write(final File file) throws IOException
+	{
+		final Path path = file.toPath().toAbsolutePath();
+		Files.createDirectories(path.getParent());
+		final Path tmp = Files.createTempFile(path.getParent(), file.getName(), ".tmp");
+
+		try
+		{
+			try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8))
+			{
+				if (file.getName().endsWith(".prom"))
+				{
+					writePrometheus(writer);
+				}
+				else
+				{
+					App.GSON.toJson(toJson(), writer);
+				}
+			}
+
+			Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally
+		{
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	private Map<String, Object> toJson()
+	{
+		final Map<String, Object> json = new LinkedHashMap<>();
+		json.put("started", started);
+		json.put("durationMillis", System.currentTimeMillis() - started);
+
+		final Map<String, Long> counterValues = new TreeMap<>();
+		counters.forEach((name, counter) -> counterValues.put(name, counter.get()));
+		json.put("counters", counterValues);
+
+		final Map<String, Long> gaugeValues = new TreeMap<>();
+		gauges.forEach((name, gauge) -> gaugeValues.put(name, gauge.getAsLong()));
+		json.put("gauges", gaugeValues);
+
+		final Map<String, Map<String, Object>> timerValues = new TreeMap<>();
+		timers.forEach((name, timer) ->
+		{
+			final Map<String, Object> values = new LinkedHashMap<>();
+			values.put("count", timer.getCount());
+			values.put("totalMillis", timer.getTotalNanos() / 1e6);
+			values.put("meanMillis", timer.getCount() == 0 ? 0 : timer.getTotalNanos() / 1e6 / timer.getCount());
+			values.put("p50Millis", timer.getQuantileNanos(0.5) / 1e6);
+			values.put("p90Millis", timer.getQuantileNanos(0.9) / 1e6);
+			values.put("p99Millis", timer.getQuantileNanos(0.99) / 1e6);
+			values.put("maxMillis", timer.getMaxNanos() / 1e6);
+			timerValues.put(name, values);
+		});
+		json.put("timers", timerValues);
+
+		return json;
+	}
+
+	private void writePrometheus(final Writer writer) throws IOException
+	{
+		for (Map.Entry<String, Counter> counter : new TreeMap<>(counters).entrySet())
+		{
+			final String name = prometheusName(counter.getKey()) + "_total";
+			writer.write("# TYPE " + name + " counter\n");
+			writer.write(name + " " + counter.getValue().get() + "\n");
+		}
+
+		for (Map.Entry<String, LongSupplier> gauge : new TreeMap<>(gauges).entrySet())
+		{
+			final String name = prometheusName(gauge.getKey());
+			writer.write("# TYPE " + name + " gauge\n");
+			writer.write(name + " " + gauge.getValue().getAsLong() + "\n");
+		}
+
+		for (Map.Entry<String, Timer> entry : new TreeMap<>(timers).entrySet())
+		{
+			final String name = prometheusName(entry.getKey()) + "_seconds";
+			final Timer timer = entry.getValue();
+			writer.write("# TYPE " + name + " summary\n");
+
+			for (double quantile : new double[]{0.5, 0.9, 0.99})
+			{
+				writer.write(name + "{quantile=\"" + quantile + "\"} " + timer.getQuantileNanos(quantile) / 1e9 + "\n");
+			}
+
+			writer.write(name + "_sum " + timer.getTotalNanos() / 1e9 + "\n");
+			writer.write(name + "_count " + timer.getCount() + "\n");
+		}
+	}
+
+	private static String prometheusName(final String name)
+	{
+		return "osrs_data_" + name.replaceAll("[^a-zA-Z0-9_]", "_");
+	}
+
+	private static String formatMillis(final long nanos)
+	{
+		return String.format("%.1f", nanos / 1e6);
+	}
+}
@@ -0,0 +1,382 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Admission control for wiki requests. Combines a token bucket limiting the request rate with an AIMD
+ * concurrency limit: the limit grows by one for every window of successful requests and is cut in half
+ * when the server throttles us, fails or when recent latency rises well above the usual latency.
+ * Latency is tracked per kind of request, as a 50 page content batch is always much slower than a small
+ * listing query. Requests wait without blocking any thread, in FIFO order within their {@link Priority}.
+ */
+@Slf4j
+class RequestThrottle
+{
+	/**
+	 * Recent latency above usual latency multiplied by this is treated as sign of server congestion
+	 */
+	private static final double LATENCY_TOLERANCE = 2.0;
+
+	/**
+	 * Weight of new sample in recent latency, so single large response does not count as congestion
+	 */
+	private static final double RECENT_LATENCY_WEIGHT = 0.1;
+
+	/**
+	 * Weight of new sample in usual latency, so it follows changing network conditions over a few hundred requests
+	 */
+	private static final double USUAL_LATENCY_WEIGHT = 0.002;
+
+	private static final long DECREASE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	/**
+	 * Handle of single admitted request, exactly one of its methods has to be called once request is done
+	 */
+	class Permit
+	{
+		private final String kind;
+		private final CompletableFuture<Permit> admission = new CompletableFuture<>();
+		private long start;
+		private boolean released;
+
+		private Permit(final String kind)
+		{
+			this.kind = kind;
+		}
+
+		void success()
+		{
+			release(Outcome.SUCCESS, clock.getAsLong() - start, 0);
+		}
+
+		void failure()
+		{
+			release(Outcome.FAILURE, 0, 0);
+		}
+
+		void throttled(final long retryAfterMillis)
+		{
+			release(Outcome.THROTTLED, 0, retryAfterMillis);
+		}
+
+		/**
+		 * Releases permit of request that was never sent, without affecting the limit
+		 */
+		void cancel()
+		{
+			release(Outcome.CANCELLED, 0, 0);
+		}
+
+		private void release(final Outcome outcome, final long latency, final long retryAfterMillis)
+		{
+			final List<Permit> ready;
+
+			synchronized (RequestThrottle.this)
+			{
+				if (released)
+				{
+					return;
+				}
+
+				released = true;
+				inFlight--;
+				update(kind, outcome, latency, retryAfterMillis);
+				ready = poll();
+			}
+
+			complete(ready);
+		}
+	}
+
+	/**
+	 * Order in which waiting requests are admitted, requests of higher priority always go first
+	 */
+	enum Priority
+	{
+		/**
+		 * Small listing and revision queries other fetches depend on
+		 */
+		HIGH,
+		/**
+		 * Bulk page content
+		 */
+		NORMAL
+	}
+
+	private enum Outcome
+	{
+		SUCCESS,
+		FAILURE,
+		THROTTLED,
+		CANCELLED
+	}
+
+	/**
+	 * Moving averages of latency of one kind of request
+	 */
+	private static final class Latency
+	{
+		private double recent;
+		private double usual;
+	}
+
+	private final ScheduledExecutorService scheduler;
+	private final LongSupplier clock;
+	private final double requestsPerSecond;
+	private final int maxConcurrency;
+	private final List<Deque<Permit>> waiting = new ArrayList<>();
+	private final Map<String, Latency> latencies = new HashMap<>();
+	private int waitingCount;
+
+	private double tokens;
+	private long lastRefill;
+	private double limit;
+	private int inFlight;
+	private long pausedUntil;
+	private long lastDecrease;
+	private boolean drainScheduled;
+
+	/**
+	 * @param scheduler scheduler used to admit waiting requests once tokens refill or pause ends
+	 * @param requestsPerSecond maximum sustained request rate, 0 for unlimited
+	 * @param maxConcurrency upper bound of the adaptive concurrency limit
+	 */
+	RequestThrottle(final ScheduledExecutorService scheduler, final double requestsPerSecond, final int maxConcurrency)
+	{
+		this(scheduler, requestsPerSecond, maxConcurrency, System::nanoTime);
+	}
+
+	/**
+	 * @param clock source of nano time
+	 */
+	RequestThrottle(final ScheduledExecutorService scheduler, final double requestsPerSecond, final int maxConcurrency, final LongSupplier clock)
+	{
+		this.scheduler = scheduler;
+		this.clock = clock;
+		this.requestsPerSecond = requestsPerSecond;
+		this.maxConcurrency = maxConcurrency;
+		this.limit = maxConcurrency;
+		this.tokens = getBurst();
+
+		final long now = clock.getAsLong();
+		this.lastRefill = now;
+		this.pausedUntil = now;
+		this.lastDecrease = now - DECREASE_INTERVAL_NANOS;
+
+		for (int i = 0; i < Priority.values().length; i++)
+		{
+			waiting.add(new ArrayDeque<>());
+		}
+	}
+
+	/**
+	 * @param priority priority of the request
+	 * @param kind kind of the request, latency is only compared between requests of same kind
+	 * @return future completed with permit once request is allowed to start
+	 */
+	CompletableFuture<Permit> acquire(final Priority priority, final String kind)
+	{
+		final Permit permit = new Permit(kind);
+		final List<Permit> ready;
+
+		synchronized (this)
+		{
+			waiting.get(priority.ordinal()).add(permit);
+			waitingCount++;
+			ready = poll();
+		}
+
+		complete(ready);
+		return permit.admission;
+	}
+
+	synchronized int getLimit()
+	{
+		return (int) limit;
+	}
+
+	synchronized int getInFlight()
+	{
+		return inFlight;
+	}
+
+	private void update(final String kind, final Outcome outcome, final long latency, final long retryAfterMillis)
+	{
+		final long now = clock.getAsLong();
+
+		switch (outcome)
+		{
+			case SUCCESS:
+				final Latency averages = latencies.computeIfAbsent(kind, k -> new Latency());
+
+				if (averages.usual == 0)
+				{
+					averages.recent = latency;
+					averages.usual = latency;
+				}
+				else
+				{
+					averages.recent += (latency - averages.recent) * RECENT_LATENCY_WEIGHT;
+					averages.usual += (latency - averages.usual) * USUAL_LATENCY_WEIGHT;
+				}
+
+				if (averages.recent > averages.usual * LATENCY_TOLERANCE)
+				{
+					decrease(now);
+				}
+				else
+				{
+					// Additive increase, roughly +1 per window of `limit` successful requests
+					limit = Math.min(maxConcurrency, limit + 1 / limit);
+				}
+
+				break;
+			case THROTTLED:
+				pausedUntil = Math.max(pausedUntil, now + TimeUnit.MILLISECONDS.toNanos(retryAfterMillis));
+				decrease(now);
+				log.debug("Throttled by server, pausing for {}ms and lowering concurrency to {}", retryAfterMillis, (int) limit);
+				break;
+			case FAILURE:
+				decrease(now);
+				break;
+			case CANCELLED:
+				break;
+		}
+	}
+
+	private void decrease(final long now)
+	{
+		// Decrease at most once per interval, requests already in flight report the same congestion
+		if (now - lastDecrease < DECREASE_INTERVAL_NANOS)
+		{
+			return;
+		}
+
+		lastDecrease = now;
+		limit = Math.max(1, limit / 2);
+	}
+
+	private List<Permit> poll()
+	{
+		final List<Permit> ready = new ArrayList<>();
+		final long now = clock.getAsLong();
+
+		if (requestsPerSecond > 0)
+		{
+			tokens = Math.min(getBurst(), tokens + (now - lastRefill) * requestsPerSecond / TimeUnit.SECONDS.toNanos(1));
+		}
+
+		lastRefill = now;
+
+		while (waitingCount > 0 && inFlight < (int) limit)
+		{
+			final long delay;
+
+			if (now < pausedUntil)
+			{
+				delay = pausedUntil - now;
+			}
+			else if (requestsPerSecond > 0 && tokens < 1)
+			{
+				delay = (long) ((1 - tokens) * TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+			}
+			else
+			{
+				if (requestsPerSecond > 0)
+				{
+					tokens--;
+				}
+
+				inFlight++;
+				waitingCount--;
+				ready.add(nextWaiting());
+				continue;
+			}
+
+			// Nothing in flight will wake us up when waiting for tokens or for the pause to end
+			if (!drainScheduled)
+			{
+				drainScheduled = true;
+				scheduler.schedule(this::drain, Math.max(delay, 1), TimeUnit.NANOSECONDS);
+			}
+
+			break;
+		}
+
+		return ready;
+	}
+
+	private Permit nextWaiting()
+	{
+		for (Deque<Permit> queue : waiting)
+		{
+			if (!queue.isEmpty())
+			{
+				return queue.poll();
+			}
+		}
+
+		throw new IllegalStateException("No request is waiting");
+	}
+
+	private void drain()
+	{
+		final List<Permit> ready;
+
+		synchronized (this)
+		{
+			drainScheduled = false;
+			ready = poll();
+		}
+
+		complete(ready);
+	}
+
+	private void complete(final List<Permit> ready)
+	{
+		// Complete outside of the lock, dependent actions start the requests
+		for (Permit permit : ready)
+		{
+			permit.start = clock.getAsLong();
+			permit.admission.complete(permit);
+		}
+	}
+
+	private double getBurst()
+	{
+		return Math.max(1, maxConcurrency);
+	}
+}
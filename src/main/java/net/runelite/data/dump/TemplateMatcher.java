@@ -0,0 +1,161 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compiled template name query. Matchers are immutable and cached per name, so dumpers can share them
+ * across threads instead of preparing the name for every page.
+ */
+@Slf4j
+public final class TemplateMatcher
+{
+	private static final Map<String, TemplateMatcher> CACHE = new ConcurrentHashMap<>();
+
+	@Getter
+	private final String name;
+
+	/**
+	 * Normalized name used as {@link WikiPage} index key
+	 */
+	final String key;
+
+	private final char[] lower;
+	private final char[] upper;
+
+	private TemplateMatcher(final String name)
+	{
+		this.name = name.trim();
+		this.key = normalize(this.name);
+		this.lower = new char[this.name.length()];
+		this.upper = new char[this.name.length()];
+
+		for (int i = 0; i < this.name.length(); i++)
+		{
+			lower[i] = Character.toLowerCase(this.name.charAt(i));
+			upper[i] = Character.toUpperCase(this.name.charAt(i));
+		}
+	}
+
+	/**
+	 * Gets matcher for template name
+	 * @param name template name (case insensitive)
+	 * @return shared matcher
+	 */
+	public static TemplateMatcher of(final String name)
+	{
+		return CACHE.computeIfAbsent(name, TemplateMatcher::new);
+	}
+
+	static String normalize(final String name)
+	{
+		return name.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Parses first call of this template with named parameters
+	 * @param data wikitext
+	 * @return parsed template or null if there is none
+	 */
+	@Nullable
+	public MediaWikiTemplate parse(final CharSequence data)
+	{
+		int start = find(data, 0);
+
+		while (start >= 0)
+		{
+			final WikitextScanner.Template template = WikitextScanner.scanTemplate(data, start);
+
+			if (template == null)
+			{
+				Metrics.global().counter("parse.failures").increment();
+				log.warn("Unterminated template {} in: {}", name, data);
+			}
+			else if (template.parameterCount > 0)
+			{
+				return MediaWikiTemplate.of(data, template);
+			}
+
+			// Try next occurrence, same as if this one was never there
+			start = find(data, start + 2);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Finds next call of this template, including nested ones
+	 * @param text wikitext
+	 * @param from offset to search from
+	 * @return offset of the opening braces or -1 if not found
+	 */
+	int find(final CharSequence text, final int from)
+	{
+		int i = WikitextScanner.indexOfPair(text, '{', from);
+
+		while (i >= 0)
+		{
+			final int nameStart = WikitextScanner.skipWhitespace(text, i + 2, text.length());
+			final int nameEnd = WikitextScanner.trimEnd(text, nameStart, WikitextScanner.findNameEnd(text, nameStart));
+
+			if (matches(text, nameStart, nameEnd))
+			{
+				return i;
+			}
+
+			i = WikitextScanner.indexOfPair(text, '{', i + 2);
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Checks if char range is this template name, ignoring case
+	 */
+	boolean matches(final CharSequence text, final int start, final int end)
+	{
+		if (end - start != lower.length)
+		{
+			return false;
+		}
+
+		for (int i = 0; i < lower.length; i++)
+		{
+			final char c = text.charAt(start + i);
+
+			if (c != lower[i] && c != upper[i] && Character.toLowerCase(c) != lower[i] && Character.toUpperCase(c) != upper[i])
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import lombok.Getter;
+
+/**
+ * Wikitext page scanned once with all of its templates, top level and nested, indexed by name.
+ * Templates without named parameters are not indexed.
+ */
+public class WikiPage
+{
+	private static final Metrics.Timer PARSE_TIMER = Metrics.global().timer("parse.page");
+
+	@Getter
+	private final CharSequence text;
+	private final Map<String, List<MediaWikiTemplate>> templates;
+
+	private WikiPage(final CharSequence text, final Map<String, List<MediaWikiTemplate>> templates)
+	{
+		this.text = text;
+		this.templates = templates;
+	}
+
+	/**
+	 * Scans page text and indexes all templates on it
+	 * @param text page wikitext
+	 * @return parsed page
+	 */
+	public static WikiPage parse(final CharSequence text)
+	{
+		final long start = PARSE_TIMER.start();
+		final Map<String, List<MediaWikiTemplate>> templates = new HashMap<>();
+
+		for (WikitextScanner.Template template : WikitextScanner.scanAll(text))
+		{
+			if (template.parameterCount == 0)
+			{
+				continue;
+			}
+
+			final String name = TemplateMatcher.normalize(text.subSequence(template.nameStart, template.nameEnd).toString());
+			templates.computeIfAbsent(name, k -> new ArrayList<>(1)).add(MediaWikiTemplate.of(text, template));
+		}
+
+		PARSE_TIMER.stop(start);
+		return new WikiPage(text, templates);
+	}
+
+	/**
+	 * Finds first template with name on page
+	 * @param name template name (case insensitive)
+	 * @return first template in page order or null if there is none
+	 */
+	@Nullable
+	public MediaWikiTemplate getTemplate(final String name)
+	{
+		return getTemplate(TemplateMatcher.of(name));
+	}
+
+	/**
+	 * Finds first template matched by matcher on page
+	 * @param matcher template matcher
+	 * @return first template in page order or null if there is none
+	 */
+	@Nullable
+	public MediaWikiTemplate getTemplate(final TemplateMatcher matcher)
+	{
+		final List<MediaWikiTemplate> found = templates.get(matcher.key);
+		return found == null ? null : found.get(0);
+	}
+
+	/**
+	 * Finds all templates with name on page
+	 * @param name template name (case insensitive)
+	 * @return templates in page order
+	 */
+	public List<MediaWikiTemplate> getTemplates(final String name)
+	{
+		return getTemplates(TemplateMatcher.of(name));
+	}
+
+	/**
+	 * Finds all templates matched by matcher on page
+	 * @param matcher template matcher
+	 * @return templates in page order
+	 */
+	public List<MediaWikiTemplate> getTemplates(final TemplateMatcher matcher)
+	{
+		final List<MediaWikiTemplate> found = templates.get(matcher.key);
+		return found == null ? Collections.emptyList() : Collections.unmodifiableList(found);
+	}
+
+	/**
+	 * Finds all templates matched by matcher nested inside other template
+	 * @param matcher template matcher
+	 * @param parent enclosing template from this page
+	 * @return nested templates in page order
+	 */
+	public List<MediaWikiTemplate> getTemplates(final TemplateMatcher matcher, final MediaWikiTemplate parent)
+	{
+		final List<MediaWikiTemplate> out = new ArrayList<>();
+
+		for (MediaWikiTemplate template : getTemplates(matcher))
+		{
+			if (parent.contains(template))
+			{
+				out.add(template);
+			}
+		}
+
+		return out;
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import com.google.common.collect.Maps;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * Source of wiki pages used by dumpers, either the live wiki API ({@link MediaWiki}) or a local export
+ * ({@link XmlDumpSource})
+ */
+public interface WikiSource
+{
+	/**
+	 * Lists all main namespace pages that transclude the given template
+	 * @param template template name without the namespace prefix, ex: Infobox Item
+	 * @return page titles
+	 */
+	List<String> getTemplateTransclusions(String template);
+
+	/**
+	 * Gets latest revisions of pages, following redirects
+	 * @param pages page titles
+	 * @return map of requested page title to its latest revision, missing pages are omitted
+	 */
+	Map<String, MediaWikiCache.Entry> getPages(Collection<String> pages);
+
+	/**
+	 * Same as {@link #getPages(Collection)}, but reports pages as they are fetched
+	 * @param pages page titles
+	 * @param fetched called with number of requested pages fetched or found missing, possibly from multiple threads
+	 * @return map of requested page title to its latest revision, missing pages are omitted
+	 */
+	default Map<String, MediaWikiCache.Entry> getPages(final Collection<String> pages, final IntConsumer fetched)
+	{
+		final Map<String, MediaWikiCache.Entry> entries = getPages(pages);
+		fetched.accept(pages.size());
+		return entries;
+	}
+
+	/**
+	 * Same as {@link #getPages(Collection)}, but returns only the wikitext
+	 * @param pages page titles
+	 * @return map of requested page title to its wikitext, missing pages are omitted
+	 */
+	default Map<String, String> getPagesData(final Collection<String> pages)
+	{
+		return Maps.transformValues(getPages(pages), MediaWikiCache.Entry::getContent);
+	}
+
+	/**
+	 * Same as {@link #getPagesData(Collection)}, but reports pages as they are fetched
+	 * @param pages page titles
+	 * @param fetched called with number of requested pages fetched or found missing, possibly from multiple threads
+	 * @return map of requested page title to its wikitext, missing pages are omitted
+	 */
+	default Map<String, String> getPagesData(final Collection<String> pages, final IntConsumer fetched)
+	{
+		return Maps.transformValues(getPages(pages, fetched), MediaWikiCache.Entry::getContent);
+	}
+
+	/**
+	 * Gets only the latest revision ids of pages, following redirects
+	 * @param pages page titles
+	 * @return map of requested page title to its latest revision id, missing pages are omitted
+	 */
+	default Map<String, Long> getRevisions(final Collection<String> pages)
+	{
+		return Maps.transformValues(getPages(pages), MediaWikiCache.Entry::getRevision);
+	}
+
+	/**
+	 * Lists main namespace pages that were edited, created, moved or deleted since the given time
+	 * @param since time of the oldest change to list
+	 * @return changed page titles
+	 */
+	Set<String> getRecentChanges(Instant since);
+}
@@ -0,0 +1,475 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Single pass scanner of MediaWiki template calls. Works directly on the page text and only records offsets,
+ * nesting of `{{ }}` and `[[ ]]` is tracked so pipes and equal signs of nested templates and links do not
+ * split the parameters of the outer template. Html comments are skipped.
+ */
+final class WikitextScanner
+{
+	/**
+	 * Template call found in text. All offsets point into the scanned text.
+	 */
+	static final class Template
+	{
+		/**
+		 * Offset of opening braces
+		 */
+		final int start;
+
+		/**
+		 * Offset after closing braces
+		 */
+		final int end;
+
+		final int nameStart;
+		final int nameEnd;
+
+		/**
+		 * Trimmed key start, key end, value start and value end of every named parameter
+		 */
+		final int[] parameters;
+		final int parameterCount;
+
+		private Template(final int start, final int end, final int nameStart, final int nameEnd, final int[] parameters, final int parameterCount)
+		{
+			this.start = start;
+			this.end = end;
+			this.nameStart = nameStart;
+			this.nameEnd = nameEnd;
+			this.parameters = parameters;
+			this.parameterCount = parameterCount;
+		}
+	}
+
+	/**
+	 * Growable list of parameter offsets
+	 */
+	private static final class Parameters
+	{
+		// Most templates on a page are small formatting ones, so allocate only once there is a parameter
+		private int[] offsets = new int[0];
+		private int count;
+
+		/**
+		 * Adds parameter `key = value` of segment, parameters with empty key are ignored
+		 */
+		void add(final CharSequence text, final int segmentStart, final int equals, final int segmentEnd)
+		{
+			final int keyStart = skipWhitespace(text, segmentStart, equals);
+			final int keyEnd = trimEnd(text, keyStart, equals);
+
+			if (keyStart == keyEnd)
+			{
+				return;
+			}
+
+			final int offset = count * 4;
+
+			if (offset + 4 > offsets.length)
+			{
+				offsets = Arrays.copyOf(offsets, Math.max(32, offsets.length * 2));
+			}
+
+			final int valueStart = skipWhitespace(text, equals + 1, segmentEnd);
+			offsets[offset] = keyStart;
+			offsets[offset + 1] = keyEnd;
+			offsets[offset + 2] = valueStart;
+			offsets[offset + 3] = trimEnd(text, valueStart, segmentEnd);
+			count++;
+		}
+	}
+
+	/**
+	 * Template that is being scanned by {@link #scanAll(CharSequence)}
+	 */
+	private static final class Frame
+	{
+		private final int index;
+		private final int start;
+		private final int nameStart;
+		private final int nameEnd;
+		private final Parameters parameters = new Parameters();
+		private int squares;
+		private int segmentStart = -1;
+		private int equals = -1;
+
+		private Frame(final int index, final int start, final int nameStart, final int nameEnd)
+		{
+			this.index = index;
+			this.start = start;
+			this.nameStart = nameStart;
+			this.nameEnd = nameEnd;
+		}
+	}
+
+	private WikitextScanner()
+	{
+	}
+
+	/**
+	 * Scans all template calls in text, including nested ones, in a single pass
+	 * @param text text to scan
+	 * @return terminated templates ordered by their start offset
+	 */
+	static List<Template> scanAll(final CharSequence text)
+	{
+		final List<Template> templates = new ArrayList<>();
+		final Deque<Frame> stack = new ArrayDeque<>();
+		final int length = text.length();
+		int i = 0;
+
+		while (i < length)
+		{
+			final char c = text.charAt(i);
+			final char next = i + 1 < length ? text.charAt(i + 1) : 0;
+
+			if (c == '<' && next == '!' && startsWith(text, i, "<!--"))
+			{
+				final int commentEnd = indexOf(text, "-->", i + 4);
+				i = commentEnd < 0 ? length : commentEnd + 3;
+				continue;
+			}
+
+			if (c == '{' && next == '{')
+			{
+				final int nameStart = skipWhitespace(text, i + 2, length);
+				final int nameEnd = trimEnd(text, nameStart, findNameEnd(text, nameStart));
+
+				// Reserve the slot so templates stay ordered by start even though nested ones end first
+				stack.push(new Frame(templates.size(), i, nameStart, nameEnd));
+				templates.add(null);
+				i += 2;
+				continue;
+			}
+
+			final Frame frame = stack.peek();
+
+			if (frame == null)
+			{
+				i++;
+				continue;
+			}
+
+			if (c == '}' && next == '}')
+			{
+				stack.pop();
+
+				if (frame.segmentStart >= 0 && frame.equals >= 0)
+				{
+					frame.parameters.add(text, frame.segmentStart, frame.equals, i);
+				}
+
+				templates.set(frame.index, new Template(frame.start, i + 2, frame.nameStart, frame.nameEnd,
+					frame.parameters.offsets, frame.parameters.count));
+				i += 2;
+				continue;
+			}
+
+			// Links are counted for every open template, same as scanTemplate counts them for one
+			if (c == '[' && next == '[')
+			{
+				for (Frame open : stack)
+				{
+					open.squares++;
+				}
+
+				i += 2;
+				continue;
+			}
+
+			if (c == ']' && next == ']')
+			{
+				for (Frame open : stack)
+				{
+					open.squares = Math.max(0, open.squares - 1);
+				}
+
+				i += 2;
+				continue;
+			}
+
+			if (c == '\n')
+			{
+				for (Frame open : stack)
+				{
+					open.squares = 0;
+				}
+			}
+			else if (frame.squares == 0)
+			{
+				if (c == '|')
+				{
+					if (frame.segmentStart >= 0 && frame.equals >= 0)
+					{
+						frame.parameters.add(text, frame.segmentStart, frame.equals, i);
+					}
+
+					frame.segmentStart = i + 1;
+					frame.equals = -1;
+				}
+				else if (c == '=' && frame.equals < 0 && frame.segmentStart >= 0)
+				{
+					frame.equals = i;
+				}
+			}
+
+			i++;
+		}
+
+		// Drop unterminated templates
+		templates.removeIf(t -> t == null);
+		return templates;
+	}
+
+	/**
+	 * Scans template call starting at given offset
+	 * @param text text to scan
+	 * @param start offset of opening braces
+	 * @return scanned template or null if the template is not terminated
+	 */
+	@Nullable
+	static Template scanTemplate(final CharSequence text, final int start)
+	{
+		final int length = text.length();
+		final int nameStart = skipWhitespace(text, start + 2, length);
+		final int nameEnd = trimEnd(text, nameStart, findNameEnd(text, nameStart));
+
+		final Parameters parameters = new Parameters();
+		int braces = 0;
+		int squares = 0;
+
+		// Name is the first segment and it is not a parameter
+		int segmentStart = -1;
+		int equals = -1;
+		int i = start + 2;
+
+		while (i < length)
+		{
+			final char c = text.charAt(i);
+			final char next = i + 1 < length ? text.charAt(i + 1) : 0;
+
+			if (c == '<' && next == '!' && startsWith(text, i, "<!--"))
+			{
+				final int commentEnd = indexOf(text, "-->", i + 4);
+
+				if (commentEnd < 0)
+				{
+					return null;
+				}
+
+				i = commentEnd + 3;
+				continue;
+			}
+
+			if (c == '{' && next == '{')
+			{
+				braces++;
+				i += 2;
+				continue;
+			}
+
+			if (c == '}' && next == '}')
+			{
+				if (braces > 0)
+				{
+					braces--;
+					i += 2;
+					continue;
+				}
+
+				if (segmentStart >= 0 && equals >= 0)
+				{
+					parameters.add(text, segmentStart, equals, i);
+				}
+
+				return new Template(start, i + 2, nameStart, nameEnd, parameters.offsets, parameters.count);
+			}
+
+			if (c == '[' && next == '[')
+			{
+				squares++;
+				i += 2;
+				continue;
+			}
+
+			if (c == ']' && next == ']')
+			{
+				squares = Math.max(0, squares - 1);
+				i += 2;
+				continue;
+			}
+
+			if (c == '\n')
+			{
+				// Links can not span multiple lines, so unclosed link can not swallow rest of the template
+				squares = 0;
+			}
+			else if (braces == 0 && squares == 0)
+			{
+				if (c == '|')
+				{
+					// Positional parameters are not used by any of our templates
+					if (segmentStart >= 0 && equals >= 0)
+					{
+						parameters.add(text, segmentStart, equals, i);
+					}
+
+					segmentStart = i + 1;
+					equals = -1;
+				}
+				else if (c == '=' && equals < 0 && segmentStart >= 0)
+				{
+					equals = i;
+				}
+			}
+
+			i++;
+		}
+
+		return null;
+	}
+
+	static int findNameEnd(final CharSequence text, int i)
+	{
+		final int length = text.length();
+
+		while (i < length)
+		{
+			final char c = text.charAt(i);
+
+			if (c == '|' || c == '{' || c == '}' || c == '[' || c == ']' || c == '<')
+			{
+				break;
+			}
+
+			i++;
+		}
+
+		return i;
+	}
+
+	static boolean isWhitespace(final char c)
+	{
+		return c <= ' ' || Character.isWhitespace(c);
+	}
+
+	static int skipWhitespace(final CharSequence text, int start, final int end)
+	{
+		while (start < end && isWhitespace(text.charAt(start)))
+		{
+			start++;
+		}
+
+		return start;
+	}
+
+	static int trimEnd(final CharSequence text, final int start, int end)
+	{
+		while (end > start && isWhitespace(text.charAt(end - 1)))
+		{
+			end--;
+		}
+
+		return end;
+	}
+
+	static boolean regionMatchesIgnoreCase(final CharSequence text, final int start, final int end, final String value)
+	{
+		if (end - start != value.length())
+		{
+			return false;
+		}
+
+		for (int i = 0; i < value.length(); i++)
+		{
+			final char a = text.charAt(start + i);
+			final char b = value.charAt(i);
+
+			if (a != b && Character.toLowerCase(a) != Character.toLowerCase(b) && Character.toUpperCase(a) != Character.toUpperCase(b))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	static int indexOfPair(final CharSequence text, final char c, int from)
+	{
+		final int last = text.length() - 1;
+
+		for (int i = from; i < last; i++)
+		{
+			if (text.charAt(i) == c && text.charAt(i + 1) == c)
+			{
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	private static int indexOf(final CharSequence text, final String value, final int from)
+	{
+		final int last = text.length() - value.length();
+
+		for (int i = from; i <= last; i++)
+		{
+			if (startsWith(text, i, value))
+			{
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	private static boolean startsWith(final CharSequence text, final int offset, final String value)
+	{
+		if (offset + value.length() > text.length())
+		{
+			return false;
+		}
+
+		for (int i = 0; i < value.length(); i++)
+		{
+			if (text.charAt(offset + i) != value.charAt(i))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
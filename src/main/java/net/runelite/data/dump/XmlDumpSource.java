@@ -0,0 +1,361 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+
+/**
+ * Wiki pages read from a local MediaWiki XML export (pages-articles.xml, optionally .bz2 or .gz compressed).
+ * The export is streamed once and only pages transcluding one of the given templates or with one of the given
+ * title prefixes are kept, so a full dump runs at disk speed without any network access.
+ */
+@Slf4j
+public class XmlDumpSource implements WikiSource
+{
+	/**
+	 * Bound of redirect chain walk, so redirect loops can not hang us
+	 */
+	private static final int MAX_REDIRECTS = 5;
+
+	private final Map<String, MediaWikiCache.Entry> pages;
+	private final Map<String, Instant> timestamps;
+	private final Map<String, String> redirects;
+
+	/**
+	 * Main namespace page titles by normalized template name
+	 */
+	private final Map<String, List<String>> transclusions;
+
+	private XmlDumpSource(final Map<String, MediaWikiCache.Entry> pages, final Map<String, Instant> timestamps,
+		final Map<String, String> redirects, final Map<String, List<String>> transclusions)
+	{
+		this.pages = pages;
+		this.timestamps = timestamps;
+		this.redirects = redirects;
+		this.transclusions = transclusions;
+	}
+
+	/**
+	 * Reads and indexes XML export
+	 * @param file export file, compression is detected from .bz2 or .gz extension
+	 * @param templates templates whose transclusions are kept, ex: Infobox Item
+	 * @param titlePrefixes title prefixes of other kept pages, ex: Module:Exchange/
+	 * @return source of the kept pages
+	 * @throws IOException when export can not be read
+	 */
+	public static XmlDumpSource load(final File file, final Collection<String> templates, final Collection<String> titlePrefixes) throws IOException
+	{
+		final long start = System.currentTimeMillis();
+
+		try (InputStream in = open(file))
+		{
+			final XmlDumpSource source = read(in, templates, titlePrefixes);
+			log.info("Indexed {} pages and {} redirects of {} in {} ms", source.pages.size(), source.redirects.size(), file,
+				System.currentTimeMillis() - start);
+			return source;
+		}
+	}
+
+	static XmlDumpSource read(final InputStream in, final Collection<String> templates, final Collection<String> titlePrefixes) throws IOException
+	{
+		final List<TemplateMatcher> matchers = new ArrayList<>();
+		final Map<String, List<String>> transclusions = new HashMap<>();
+
+		for (String template : templates)
+		{
+			final TemplateMatcher matcher = TemplateMatcher.of(template);
+			matchers.add(matcher);
+			transclusions.put(matcher.key, new ArrayList<>());
+		}
+
+		final Map<String, MediaWikiCache.Entry> pages = new HashMap<>();
+		final Map<String, Instant> timestamps = new HashMap<>();
+		final Map<String, String> redirects = new HashMap<>();
+
+		final XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+		try
+		{
+			final XMLStreamReader reader = factory.createXMLStreamReader(in, "UTF-8");
+			String title = null;
+			int namespace = 0;
+			String redirect = null;
+			long revision = 0;
+			Instant timestamp = null;
+			String text = null;
+			boolean revisionId = false;
+
+			while (reader.hasNext())
+			{
+				final int event = reader.next();
+
+				if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals("page"))
+				{
+					if (title == null)
+					{
+						continue;
+					}
+
+					if (redirect != null)
+					{
+						redirects.put(title, normalizeTitle(redirect));
+						continue;
+					}
+
+					if (text == null || !isKept(title, text, matchers, titlePrefixes))
+					{
+						continue;
+					}
+
+					pages.put(title, new MediaWikiCache.Entry(revision, text));
+
+					if (timestamp != null)
+					{
+						timestamps.put(title, timestamp);
+					}
+
+					for (TemplateMatcher matcher : matchers)
+					{
+						if (namespace == 0 && matcher.find(text, 0) >= 0)
+						{
+							transclusions.get(matcher.key).add(title);
+						}
+					}
+
+					continue;
+				}
+
+				if (event != XMLStreamConstants.START_ELEMENT)
+				{
+					continue;
+				}
+
+				switch (reader.getLocalName())
+				{
+					case "page":
+						title = null;
+						namespace = 0;
+						redirect = null;
+						revision = 0;
+						timestamp = null;
+						text = null;
+						break;
+					case "title":
+						title = normalizeTitle(reader.getElementText());
+						break;
+					case "ns":
+						namespace = Integer.parseInt(reader.getElementText().trim());
+						break;
+					case "redirect":
+						redirect = reader.getAttributeValue(null, "title");
+						break;
+					case "revision":
+						// Page, revision and contributor all have id, revision id comes first in revision
+						revisionId = true;
+						break;
+					case "id":
+						if (revisionId)
+						{
+							revision = Long.parseLong(reader.getElementText().trim());
+							revisionId = false;
+						}
+
+						break;
+					case "timestamp":
+						timestamp = parseTimestamp(reader.getElementText());
+						break;
+					case "text":
+						// Later revisions of full history exports replace earlier ones
+						text = reader.getElementText();
+						break;
+				}
+			}
+
+			reader.close();
+		}
+		catch (XMLStreamException | NumberFormatException e)
+		{
+			throw new IOException("Malformed XML export", e);
+		}
+
+		return new XmlDumpSource(pages, timestamps, redirects, transclusions);
+	}
+
+	@Override
+	public List<String> getTemplateTransclusions(final String template)
+	{
+		final List<String> titles = transclusions.get(TemplateMatcher.of(template).key);
+
+		if (titles == null)
+		{
+			log.warn("Transclusions of {} were not indexed", template);
+			return Collections.emptyList();
+		}
+
+		return Collections.unmodifiableList(titles);
+	}
+
+	@Override
+	public Map<String, MediaWikiCache.Entry> getPages(final Collection<String> titles)
+	{
+		final Map<String, MediaWikiCache.Entry> out = new HashMap<>();
+
+		for (String title : titles)
+		{
+			final MediaWikiCache.Entry entry = pages.get(resolveTitle(title));
+
+			if (entry != null)
+			{
+				out.put(title, entry);
+			}
+		}
+
+		return out;
+	}
+
+	/**
+	 * Export is a snapshot, so pages changed since the given time are the ones whose latest revision is newer
+	 */
+	@Override
+	public Set<String> getRecentChanges(final Instant since)
+	{
+		final Set<String> changed = new HashSet<>();
+		timestamps.forEach((title, timestamp) ->
+		{
+			if (!timestamp.isBefore(since))
+			{
+				changed.add(title);
+			}
+		});
+
+		return changed;
+	}
+
+	private String resolveTitle(final String title)
+	{
+		String resolved = normalizeTitle(title);
+
+		for (int i = 0; i < MAX_REDIRECTS; i++)
+		{
+			final String next = redirects.get(resolved);
+
+			if (next == null)
+			{
+				break;
+			}
+
+			resolved = next;
+		}
+
+		return resolved;
+	}
+
+	private static boolean isKept(final String title, final String text, final List<TemplateMatcher> matchers, final Collection<String> titlePrefixes)
+	{
+		for (String prefix : titlePrefixes)
+		{
+			if (title.startsWith(prefix))
+			{
+				return true;
+			}
+		}
+
+		for (TemplateMatcher matcher : matchers)
+		{
+			if (matcher.find(text, 0) >= 0)
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static Instant parseTimestamp(final String timestamp)
+	{
+		try
+		{
+			return Instant.parse(timestamp.trim());
+		}
+		catch (DateTimeParseException e)
+		{
+			return null;
+		}
+	}
+
+	private static String normalizeTitle(final String title)
+	{
+		// Spaces and underscores are the same in titles
+		return title.replace('_', ' ').trim();
+	}
+
+	private static InputStream open(final File file) throws IOException
+	{
+		final InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()), 1 << 16);
+
+		try
+		{
+			if (file.getName().endsWith(".bz2"))
+			{
+				// Wiki dumps are usually multistream, so keep reading after the first stream
+				return new BZip2CompressorInputStream(in, true);
+			}
+
+			if (file.getName().endsWith(".gz"))
+			{
+				return new GZIPInputStream(in, 1 << 16);
+			}
+
+			return in;
+		}
+		catch (IOException e)
+		{
+			in.close();
+			throw e;
+		}
+	}
+}
@@ -25,90 +25,132 @@ package net.runelite.data.dump.wiki;
 
 import com.google.common.base.Strings;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Map;
-import java.util.TreeMap;
-import java.util.stream.Stream;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.IntStream;
+import javax.annotation.Nullable;
 import lombok.extern.slf4j.Slf4j;
-import net.runelite.cache.ItemManager;
 import net.runelite.cache.definitions.ItemDefinition;
-import net.runelite.cache.fs.Store;
-import net.runelite.cache.util.Namer;
-import net.runelite.data.App;
-import net.runelite.data.dump.MediaWiki;
+import net.runelite.data.dump.BinaryTableWriter;
+import net.runelite.data.dump.DumpContext;
+import net.runelite.data.dump.DumpOptions;
+import net.runelite.data.dump.DumpProgress;
+import net.runelite.data.dump.JsonDumpWriter;
 import net.runelite.data.dump.MediaWikiTemplate;
+import net.runelite.data.dump.Metrics;
+import net.runelite.data.dump.WikiSource;
 
 @Slf4j
 public class ItemLimitsDumper
 {
-	public static void dump(final Store store, final MediaWiki wiki) throws IOException
+	/**
+	 * Dumps item_limits.json and with binary option also columnar item_limits.bin, see {@link net.runelite.data.dump.BinaryTable}
+	 */
+	public static void dump(final DumpContext context, final WikiSource wiki, final DumpOptions options) throws IOException
 	{
-		final File out = new File("runelite/runelite-client/src/main/resources/");
+		final File out = options.getOutputDirectory();
 		out.mkdirs();
 
 		log.info("Dumping item limits to {}", out);
 
-		final ItemManager itemManager = new ItemManager(store);
-		itemManager.load();
+		final Metrics metrics = options.getMetrics();
+		final Metrics.Timer fetchTimer = metrics.timer("item_limits.fetch");
+		final Metrics.Timer parseTimer = metrics.timer("item_limits.parse");
+		final Metrics.Timer writeTimer = metrics.timer("item_limits.write");
 
-		final Map<Integer, Integer> limits = new TreeMap<>();
-		final Collection<ItemDefinition> items = itemManager.getItems();
-		final Stream<ItemDefinition> itemDefinitionStream = items.parallelStream();
+		// Item ids are dense, so all per item state is indexed by id
+		final Collection<ItemDefinition> items = context.getItems();
+		final int maxId = context.getMaxItemId();
+		final String[] pageNames = new String[maxId + 1];
+		final Set<String> pageNameSet = new HashSet<>();
 
-		itemDefinitionStream.forEach(item ->
+		for (ItemDefinition item : items)
 		{
 			if (item.getNotedTemplate() != -1)
 			{
-				return;
+				continue;
 			}
 
-			if (item.name.equalsIgnoreCase("NULL"))
+			final String name = context.getItemName(item.id);
+
+			if (name == null)
 			{
-				return;
+				continue;
 			}
 
-			final String name = Namer
-				.removeTags(item.name)
-				.replace('\u00A0', ' ')
-				.trim();
+			pageNames[item.id] = "Module:Exchange/" + name;
+			pageNameSet.add(pageNames[item.id]);
+		}
 
-			if (name.isEmpty())
+		// Fetch all exchange modules up front in batches instead of one request per item
+		final DumpProgress.Task progress = options.startProgress("item_limits", Arrays.stream(pageNames).filter(Objects::nonNull).count());
+		long stage = fetchTimer.start();
+		progress.fetching(pageNameSet.size());
+		final Map<String, String> pages = wiki.getPagesData(pageNameSet, progress::fetched);
+		fetchTimer.stop(stage);
+
+		// Each worker only writes the slot of its own item, 0 is no limit
+		stage = parseTimer.start();
+		final int[] limits = new int[maxId + 1];
+		IntStream.rangeClosed(0, maxId).parallel()
+			.filter(id -> pageNames[id] != null)
+			.forEach(id -> limits[id] = dumpItemLimit(id, pageNames[id], pages.get(pageNames[id]), progress));
+		parseTimer.stop(stage);
+
+		// Slots are already in id order, so entries are streamed straight to file
+		stage = writeTimer.start();
+		try (JsonDumpWriter writer = JsonDumpWriter.open(new File(out, "item_limits.json")))
+		{
+			for (int id = 0; id <= maxId; id++)
 			{
-				return;
+				if (limits[id] > 0)
+				{
+					writer.write(id, limits[id]);
+				}
 			}
 
-			final String data = wiki.getPageData("Module:Exchange/" + name, -1);
+			writer.commit();
+			log.info("Dumped {} item limits", writer.getCount());
+		}
 
-			if (Strings.isNullOrEmpty(data))
-			{
-				return;
-			}
+		if (options.isBinary())
+		{
+			BinaryTableWriter.write(new File(out, "item_limits.bin"), Integer.class, limits.length, id -> limits[id] > 0 ? limits[id] : null);
+		}
 
-			final MediaWikiTemplate geStats = MediaWikiTemplate.parseLua(data);
+		writeTimer.stop(stage);
+	}
 
-			if (geStats == null)
-			{
-				return;
-			}
+	private static int dumpItemLimit(final int id, final String pageName, @Nullable final String data, final DumpProgress.Task progress)
+	{
+		if (Strings.isNullOrEmpty(data))
+		{
+			progress.skipped(id, "missing " + pageName);
+			return 0;
+		}
 
-			final Integer limit = geStats.getInt("limit");
+		final MediaWikiTemplate geStats = MediaWikiTemplate.parseLua(data);
 
-			if (limit == null || limit <= 0)
-			{
-				return;
-			}
+		if (geStats == null)
+		{
+			progress.failed(id, "unparsable " + pageName);
+			return 0;
+		}
 
-			limits.put(item.id, limit);
-			log.info("Dumped item limit for {} {}", item.id, name);
-		});
+		final Integer limit = geStats.getInt("limit");
 
-		try (FileWriter fw = new FileWriter(new File(out, "item_limits.json")))
+		if (limit == null || limit <= 0)
 		{
-			fw.write(App.GSON.toJson(limits));
+			progress.skipped(id, "no limit on " + pageName);
+			return 0;
 		}
 
-		log.info("Dumped {} item limits", limits.size());
+		progress.dumped(id, pageName);
+		return limit;
 	}
 }
\ No newline at end of file
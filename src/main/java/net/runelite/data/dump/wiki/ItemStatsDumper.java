@@ -23,30 +23,45 @@
  */
 package net.runelite.data.dump.wiki;
 
-import com.google.common.base.Strings;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.stream.Stream;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import lombok.Builder;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.EquipmentInventorySlot;
-import net.runelite.cache.ItemManager;
 import net.runelite.cache.definitions.ItemDefinition;
-import net.runelite.cache.fs.Store;
-import net.runelite.cache.util.Namer;
-import net.runelite.data.App;
-import net.runelite.data.dump.MediaWiki;
+import net.runelite.data.dump.BinaryTableWriter;
+import net.runelite.data.dump.DumpContext;
+import net.runelite.data.dump.DumpJournal;
+import net.runelite.data.dump.DumpManifest;
+import net.runelite.data.dump.DumpOptions;
+import net.runelite.data.dump.DumpProgress;
+import net.runelite.data.dump.JsonDumpReader;
+import net.runelite.data.dump.JsonDumpWriter;
+import net.runelite.data.dump.MediaWikiLookup;
 import net.runelite.data.dump.MediaWikiTemplate;
+import net.runelite.data.dump.Metrics;
+import net.runelite.data.dump.TemplateMatcher;
+import net.runelite.data.dump.WikiPage;
+import net.runelite.data.dump.WikiSource;
 
 @Slf4j
 public class ItemStatsDumper
 {
 	private final static Integer MAX_ITEMS_ON_PAGE = 50;
+	private static final TemplateMatcher INFOBOX_ITEM = TemplateMatcher.of("Infobox Item");
+	private static final TemplateMatcher INFOBOX_BONUSES = TemplateMatcher.of("Infobox Bonuses");
 
 	@Value
 	@Builder
@@ -86,130 +101,346 @@ public class ItemStatsDumper
 		private final ItemEquipmentStats equipment;
 	}
 
-	public static void dump(final Store store, final MediaWiki wiki) throws IOException
+	/**
+	 * Stats of all variants on single page
+	 */
+	@Value
+	private static final class PageStats
+	{
+		/**
+		 * Stats of the only variant, used by every item on page
+		 */
+		@Nullable
+		private final ItemStats single;
+		private final Map<String, ItemStats> variants;
+
+		@Nullable
+		ItemStats get(final String name)
+		{
+			return variants.isEmpty() ? single : variants.get(name);
+		}
+	}
+
+	/**
+	 * Dumps item_stats.json and with binary option also columnar item_stats.bin, see {@link net.runelite.data.dump.BinaryTable}.
+	 * Incremental dump recomputes only items whose definition or wiki page changed since the previous run.
+	 * Completed items are journaled, so a restarted run skips the items its failed predecessor already finished.
+	 */
+	public static void dump(final DumpContext context, final WikiSource wiki, final DumpOptions options) throws IOException
 	{
-		final File out = new File("runelite/runelite-client/src/main/resources/");
+		final File out = options.getOutputDirectory();
 		out.mkdirs();
 
 		log.info("Dumping item stats to {}", out);
 
-		final ItemManager itemManager = new ItemManager(store);
-		itemManager.load();
-
-		final Map<Integer, ItemStats> itemStats = new TreeMap<>();
-		final Collection<ItemDefinition> items = itemManager.getItems();
-		final Stream<ItemDefinition> itemDefinitionStream = items.parallelStream();
+		final Metrics metrics = options.getMetrics();
+		final Metrics.Timer lookupTimer = metrics.timer("item_stats.lookup");
+		final Metrics.Timer pagesTimer = metrics.timer("item_stats.pages");
+		final Metrics.Timer writeTimer = metrics.timer("item_stats.write");
+
+		final long started = System.currentTimeMillis();
+		final File jsonFile = new File(out, "item_stats.json");
+		final File manifestFile = options.getManifestFile("item_stats");
+		final DumpManifest previous = options.isIncremental() ? DumpManifest.load(manifestFile) : null;
+
+		// Number of changed items is known only after the lookup, but fetching its pages takes most of the run
+		final DumpProgress.Task progress = options.startProgress("item_stats", 0);
+		long stage = lookupTimer.start();
+		final MediaWikiLookup lookup = previous == null
+			? MediaWikiLookup.build(wiki, INFOBOX_ITEM.getName(), ItemStatsDumper::parseIds, progress)
+			: MediaWikiLookup.buildIncremental(wiki, INFOBOX_ITEM.getName(), ItemStatsDumper::parseIds, previous,
+				wiki.getRecentChanges(Instant.ofEpochMilli(previous.getChangesSince())), progress);
+		final Collection<ItemDefinition> items = context.getItems();
+		final int maxId = context.getMaxItemId();
+
+		// Item ids are dense, so all per item state is indexed by id
+		final ItemStats[] itemStats = new ItemStats[maxId + 1];
+		final String[] definitionHashes = new String[maxId + 1];
+		final List<ItemDefinition> changed = new ArrayList<>();
+
+		if (previous != null)
+		{
+			// Unchanged items are carried over from the previous output untouched
+			final Map<Integer, ItemStats> previousStats = JsonDumpReader.read(jsonFile, ItemStats.class);
+			previousStats.forEach((id, stats) ->
+			{
+				if (id <= maxId)
+				{
+					itemStats[id] = stats;
+				}
+			});
+		}
 
-		itemDefinitionStream.forEach(item ->
+		for (ItemDefinition item : items)
 		{
-			if (item.getNotedTemplate() != -1)
+			// Name is the only definition input of item stats
+			definitionHashes[item.id] = DumpManifest.hash(item.name, item.getNotedTemplate());
+			final DumpManifest.Entry entry = previous == null ? null : previous.getEntries().get(item.id);
+
+			if (entry == null || !entry.getDefinitionHash().equals(definitionHashes[item.id]) || lookup.isChanged(item.id))
 			{
-				return;
+				changed.add(item);
 			}
+		}
+
+		if (previous != null)
+		{
+			log.info("{} of {} items changed since the previous run", changed.size(), items.size());
+			lookup.load(changed.stream().map(item -> item.id).collect(Collectors.toList()));
+		}
 
-			if (item.name.equalsIgnoreCase("NULL"))
+		lookupTimer.stop(stage);
+
+		// Items completed by a run that died are restored from its journal instead of being dumped again. Pages fetched
+		// by a run that died before dumping any item are not journaled, they are resumed from the page cache instead
+		final File journalFile = options.getJournalFile("item_stats");
+		final DumpJournal<ItemStats> journal = journalFile == null ? null : DumpJournal.open(journalFile, ItemStats.class);
+
+		// Every distinct page is visited once, items sharing it only pick their variant
+		progress.setTotal(changed.size());
+		final Map<String, List<ItemDefinition>> pageItems = new HashMap<>();
+		for (ItemDefinition item : changed)
+		{
+			// Changed items without stats must not keep the carried over ones
+			itemStats[item.id] = null;
+
+			if (journal != null && journal.isCompleted(item.id))
 			{
-				return;
+				itemStats[item.id] = journal.get(item.id);
+
+				if (itemStats[item.id] != null)
+				{
+					progress.dumped(item.id, "journal");
+				}
+				else
+				{
+					progress.skipped(item.id, "journal");
+				}
+
+				continue;
 			}
 
-			final String name = Namer
-				.removeTags(item.name)
-				.replace('\u00A0', ' ')
-				.trim();
+			final String title = lookup.getPageTitle(item.id);
 
-			if (name.isEmpty())
+			if (item.getNotedTemplate() == -1 && context.getItemName(item.id) != null && title != null)
 			{
-				return;
+				pageItems.computeIfAbsent(title, k -> new ArrayList<>()).add(item);
 			}
+			else
+			{
+				progress.skipped(item.id, title == null ? "no page" : "noted or unnamed");
+			}
+		}
+
+		// Each worker only writes the slots of items on its own page
+		stage = pagesTimer.start();
+		try
+		{
+			pageItems.entrySet().parallelStream().forEach(e ->
+			{
+				final WikiPage page = lookup.getPage(e.getKey());
+				final PageStats pageStats = dumpPageStats(page);
+
+				// Failed items are not journaled, so they are retried by the next run
+				final Map<Integer, ItemStats> completed = new HashMap<>();
+
+				for (ItemDefinition item : e.getValue())
+				{
+					if (page == null)
+					{
+						progress.failed(item.id, "missing " + e.getKey());
+						continue;
+					}
+
+					if (pageStats == null)
+					{
+						completed.put(item.id, null);
+						progress.skipped(item.id, "no infobox on " + e.getKey());
+						continue;
+					}
+
+					itemStats[item.id] = pageStats.get(context.getItemName(item.id));
+					completed.put(item.id, itemStats[item.id]);
+
+					if (itemStats[item.id] != null)
+					{
+						progress.dumped(item.id, e.getKey());
+					}
+					else
+					{
+						progress.skipped(item.id, "no stats on " + e.getKey());
+					}
+				}
 
-			final String data = wiki.getSpecialLookupData("item", item.id, 0);
+				if (journal != null && !completed.isEmpty())
+				{
+					try
+					{
+						journal.append(completed);
+					}
+					catch (IOException ex)
+					{
+						throw new UncheckedIOException(ex);
+					}
+				}
+			});
+		}
+		finally
+		{
+			if (journal != null)
+			{
+				journal.close();
+			}
+		}
+		pagesTimer.stop(stage);
 
-			if (Strings.isNullOrEmpty(data))
+		// Slots are already in id order, so entries are streamed straight to file
+		stage = writeTimer.start();
+		try (JsonDumpWriter writer = JsonDumpWriter.open(jsonFile))
+		{
+			for (int id = 0; id <= maxId; id++)
 			{
-				return;
+				if (itemStats[id] != null)
+				{
+					writer.write(id, itemStats[id]);
+				}
 			}
 
-			final MediaWikiTemplate base = MediaWikiTemplate.parseWikitext("Infobox Item", data);
+			writer.commit();
+			log.info("Dumped {} item stats", writer.getCount());
+		}
+
+		if (options.isBinary())
+		{
+			BinaryTableWriter.write(new File(out, "item_stats.bin"), ItemStats.class, itemStats.length, id -> itemStats[id]);
+		}
+
+		writeTimer.stop(stage);
+
+		if (manifestFile != null)
+		{
+			final Map<Integer, DumpManifest.Entry> entries = new HashMap<>();
 
-			if (base == null)
+			if (previous != null)
 			{
-				return;
+				entries.putAll(previous.getEntries());
 			}
 
-			final int nItems = findMaxIndex(base);
-			final ItemStats.ItemStatsBuilder itemStat = ItemStats.builder();
-
-			for (int index = 1; index <= nItems; index++)
+			for (ItemDefinition item : changed)
 			{
-				final int offset = nItems == 1 ? 0 : index;
-				final String wikiName = getVarString(base, "name", offset);
+				final String title = lookup.getPageTitle(item.id);
 
-				// Skip this index if name or itemId doesn't match with wiki
-				if (nItems > 1 && !wikiName.equalsIgnoreCase(name))
+				// Items whose page failed to load have no entry, so the next run dumps them again
+				if (title != null && lookup.getPage(title) == null)
 				{
+					entries.remove(item.id);
 					continue;
 				}
 
-				itemStat.quest(getVarBoolean(base, "quest", offset));
-				itemStat.equipable(getVarBoolean(base, "equipable", offset));
-				itemStat.weight(getVarDouble(base, "weight", offset));
+				entries.put(item.id, lookup.createManifestEntry(title, definitionHashes[item.id]));
+			}
 
-				if (Boolean.TRUE.equals(itemStat.equipable))
-				{
-					final MediaWikiTemplate stats = MediaWikiTemplate.parseWikitext("Infobox Bonuses", data);
+			lookup.updateManifestEntries(entries);
+			new DumpManifest(started, entries).save(manifestFile);
+		}
 
-					if (stats != null)
-					{
-						final ItemEquipmentStats.ItemEquipmentStatsBuilder equipmentStat = ItemEquipmentStats.builder();
-
-						equipmentStat.slot(toEquipmentSlot(getVarString(stats, "slot", offset)));
-						equipmentStat.astab(getVarInt(stats, "astab", offset));
-						equipmentStat.aslash(getVarInt(stats, "aslash", offset));
-						equipmentStat.acrush(getVarInt(stats, "acrush", offset));
-						equipmentStat.amagic(getVarInt(stats, "amagic", offset));
-						equipmentStat.arange(getVarInt(stats, "arange", offset));
-
-						equipmentStat.dstab(getVarInt(stats, "dstab", offset));
-						equipmentStat.dslash(getVarInt(stats, "dslash", offset));
-						equipmentStat.dcrush(getVarInt(stats, "dcrush", offset));
-						equipmentStat.dmagic(getVarInt(stats, "dmagic", offset));
-						equipmentStat.drange(getVarInt(stats, "drange", offset));
-
-						equipmentStat.str(getVarInt(stats, "str", offset));
-						equipmentStat.rstr(getVarInt(stats, "rstr", offset));
-						equipmentStat.mdmg(getVarInt(stats, "mdmg", offset));
-						equipmentStat.prayer(getVarInt(stats, "prayer", offset));
-						equipmentStat.aspeed(getVarInt(stats, "aspeed", offset));
-
-						final ItemEquipmentStats builtEqStat = equipmentStat.build();
-
-						if (!builtEqStat.equals(ItemEquipmentStats.builder().build()))
-						{
-							itemStat.equipment(builtEqStat);
-						}
-					}
-				}
+		// Dump is complete, next run starts from scratch
+		if (journal != null)
+		{
+			journal.delete();
+		}
+	}
 
-				break;
-			}
+	/**
+	 * Builds stats of every variant on the page
+	 * @return stats or null if page has no item infobox
+	 */
+	@Nullable
+	private static PageStats dumpPageStats(@Nullable final WikiPage page)
+	{
+		if (page == null)
+		{
+			return null;
+		}
+
+		final MediaWikiTemplate base = page.getTemplate(INFOBOX_ITEM);
+
+		if (base == null)
+		{
+			return null;
+		}
+
+		final MediaWikiTemplate bonuses = page.getTemplate(INFOBOX_BONUSES);
+		final int nItems = findMaxIndex(base);
 
-			final ItemStats val = itemStat.build();
+		if (nItems == 1)
+		{
+			return new PageStats(buildItemStats(base, bonuses, 0), Collections.emptyMap());
+		}
 
-			if (ItemStats.DEFAULT.equals(val))
+		// Items pick variant by name, first variant with the name wins
+		final Map<String, ItemStats> variants = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+		for (int index = 1; index <= nItems; index++)
+		{
+			final String wikiName = getVarString(base, "name", index);
+
+			if (wikiName != null && !variants.containsKey(wikiName))
 			{
-				return;
+				variants.put(wikiName, buildItemStats(base, bonuses, index));
 			}
+		}
+
+		return new PageStats(null, variants);
+	}
 
-			itemStats.put(item.id, val);
-			log.info("Dumped item stat for {} {}", item.id, name);
-		});
+	@Nullable
+	private static ItemStats buildItemStats(final MediaWikiTemplate base, @Nullable final MediaWikiTemplate stats, final int offset)
+	{
+		final ItemStats.ItemStatsBuilder itemStat = ItemStats.builder();
+		itemStat.quest(getVarBoolean(base, "quest", offset));
+		itemStat.equipable(getVarBoolean(base, "equipable", offset));
+		itemStat.weight(getVarDouble(base, "weight", offset));
 
-		try (FileWriter fw = new FileWriter(new File(out, "item_stats.json")))
+		if (Boolean.TRUE.equals(itemStat.equipable) && stats != null)
 		{
-			fw.write(App.GSON.toJson(itemStats));
+			final ItemEquipmentStats.ItemEquipmentStatsBuilder equipmentStat = ItemEquipmentStats.builder();
+
+			equipmentStat.slot(toEquipmentSlot(getVarString(stats, "slot", offset)));
+			equipmentStat.astab(getVarInt(stats, "astab", offset));
+			equipmentStat.aslash(getVarInt(stats, "aslash", offset));
+			equipmentStat.acrush(getVarInt(stats, "acrush", offset));
+			equipmentStat.amagic(getVarInt(stats, "amagic", offset));
+			equipmentStat.arange(getVarInt(stats, "arange", offset));
+
+			equipmentStat.dstab(getVarInt(stats, "dstab", offset));
+			equipmentStat.dslash(getVarInt(stats, "dslash", offset));
+			equipmentStat.dcrush(getVarInt(stats, "dcrush", offset));
+			equipmentStat.dmagic(getVarInt(stats, "dmagic", offset));
+			equipmentStat.drange(getVarInt(stats, "drange", offset));
+
+			equipmentStat.str(getVarInt(stats, "str", offset));
+			equipmentStat.rstr(getVarInt(stats, "rstr", offset));
+			equipmentStat.mdmg(getVarInt(stats, "mdmg", offset));
+			equipmentStat.prayer(getVarInt(stats, "prayer", offset));
+			equipmentStat.aspeed(getVarInt(stats, "aspeed", offset));
+
+			final ItemEquipmentStats builtEqStat = equipmentStat.build();
+
+			if (!builtEqStat.equals(ItemEquipmentStats.builder().build()))
+			{
+				itemStat.equipment(builtEqStat);
+			}
 		}
 
-		log.info("Dumped {} item stats", itemStats.size());
+		final ItemStats val = itemStat.build();
+		return ItemStats.DEFAULT.equals(val) ? null : val;
+	}
+
+	private static Collection<Integer> parseIds(final WikiPage page)
+	{
+		final MediaWikiTemplate base = page.getTemplate(INFOBOX_ITEM);
+		return base == null ? Collections.emptySet() : MediaWikiLookup.parseIds(base);
 	}
 
 	/**
@@ -25,37 +25,47 @@ package net.runelite.data.dump.wiki;
 
 import com.google.common.base.Strings;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import lombok.Builder;
-import lombok.Data;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
-import net.runelite.cache.NpcManager;
 import net.runelite.cache.definitions.NpcDefinition;
-import net.runelite.cache.fs.Store;
-import net.runelite.cache.util.Namer;
-import net.runelite.data.App;
-import net.runelite.data.dump.MediaWiki;
+import net.runelite.data.dump.BinaryTableWriter;
+import net.runelite.data.dump.DumpContext;
+import net.runelite.data.dump.DumpManifest;
+import net.runelite.data.dump.DumpOptions;
+import net.runelite.data.dump.DumpProgress;
+import net.runelite.data.dump.JsonDumpReader;
+import net.runelite.data.dump.JsonDumpWriter;
+import net.runelite.data.dump.MediaWikiLookup;
 import net.runelite.data.dump.MediaWikiTemplate;
+import net.runelite.data.dump.Metrics;
+import net.runelite.data.dump.TemplateMatcher;
+import net.runelite.data.dump.WikiPage;
+import net.runelite.data.dump.WikiSource;
 
 @Slf4j
 public class NpcStatsDumper
 {
-	@Data
-	@Builder
+	@Value
+	@Builder(toBuilder = true)
 	private static final class NpcStats
 	{
-		private String name;
+		private final String name;
 		private final Integer hitpoints;
 		private final Integer combatLevel;
 		private final Integer slayerLevel;
@@ -91,166 +101,313 @@ public class NpcStatsDumper
 		private final Boolean undead;
 	}
 
+	/**
+	 * Stats of npc id dumped from page
+	 */
+	@Value
+	private static final class DumpedNpcStats
+	{
+		private final int id;
+		private final String page;
+		private final int order;
+		private final NpcStats stats;
+	}
+
 	private static final NpcStats DEFAULT = NpcStats.builder().build();
+	private static final TemplateMatcher SWITCH_INFOBOX = TemplateMatcher.of("Switch infobox");
+	private static final TemplateMatcher INFOBOX_MONSTER = TemplateMatcher.of("Infobox Monster");
 
 	/**
-	 * Looks for and parses the `Switch infobox` into a {@link MediaWikiTemplate} and then iterates over the `item#` values.
-	 * Attempts to parse each `item#` value via `parseWikiText`, matching the `name` attribute. null values are ignored
+	 * Collects templates nested in the `item#` values of `Switch infobox`. As the page was already scanned,
+	 * this only filters indexed templates by their position instead of parsing each `item#` value again
 	 *
-	 * @param name only parses MediaWikiTemplates from `Switch infobox` if matches this value. (case insensitive)
-	 * @param baseTemplate the {@link MediaWikiTemplate} representation of the `Switch infobox` to parse from
-	 * @return List of all valid {@link MediaWikiTemplate}s matching `name` from `baseTemplate`s `item#` values
+	 * @param name only returns MediaWikiTemplates from `Switch infobox` if matches this value. (case insensitive)
+	 * @param page the {@link WikiPage} the `Switch infobox` is on
+	 * @param switchInfobox the {@link MediaWikiTemplate} representation of the `Switch infobox`
+	 * @return List of all {@link MediaWikiTemplate}s matching `name` nested in `switchInfobox`, in page order
 	 */
-	static List<MediaWikiTemplate> parseSwitchInfoboxItems(final String name, final MediaWikiTemplate baseTemplate)
+	static List<MediaWikiTemplate> parseSwitchInfoboxItems(final String name, final WikiPage page, final MediaWikiTemplate switchInfobox)
 	{
-		final List<MediaWikiTemplate> templates = new ArrayList<>();
+		return page.getTemplates(TemplateMatcher.of(name), switchInfobox);
+	}
 
-		String value;
-		int suffix = 1;
-		while ((value = baseTemplate.getValue("item" + suffix)) != null)
+	/**
+	 * Finds all `Infobox Monster` templates on page, either from the `Switch infobox` or the single top level one
+	 *
+	 * @param page scanned page
+	 * @return List of `Infobox Monster` templates
+	 */
+	private static List<MediaWikiTemplate> parseMonsterTemplates(final WikiPage page)
+	{
+		final MediaWikiTemplate switchBase = page.getTemplate(SWITCH_INFOBOX);
+		if (switchBase != null)
 		{
-			final MediaWikiTemplate subTemplate = MediaWikiTemplate.parseWikitext(name, value);
-			if (subTemplate != null)
-			{
-				templates.add(subTemplate);
-			}
+			return parseSwitchInfoboxItems(INFOBOX_MONSTER.getName(), page, switchBase);
+		}
 
-			suffix++;
+		final MediaWikiTemplate base = page.getTemplate(INFOBOX_MONSTER);
+		if (base == null)
+		{
+			return Collections.emptyList();
 		}
 
-		return templates;
+		return Collections.singletonList(base);
 	}
 
-	public static void dump(final Store store, final MediaWiki wiki) throws IOException
+	private static Set<Integer> parseIds(final WikiPage page)
 	{
-		final File out = new File("runelite/runelite-client/src/main/resources/");
-		out.mkdirs();
+		final Set<Integer> ids = new HashSet<>();
+		for (final MediaWikiTemplate base : parseMonsterTemplates(page))
+		{
+			ids.addAll(MediaWikiLookup.parseIds(base));
+		}
 
-		log.info("Dumping npc stats to {}", out);
+		return ids;
+	}
 
-		final NpcManager npcManager = new NpcManager(store);
-		npcManager.load();
+	/**
+	 * Dumps npc_stats.json and with binary also columnar npc_stats.bin, see {@link net.runelite.data.dump.BinaryTable}
+	 */
+	public static void dump(final DumpContext context, final WikiSource wiki, final DumpOptions options) throws IOException
+	{
+		final File out = options.getOutputDirectory();
+		out.mkdirs();
 
-		final Map<Integer, NpcStats> npcStats = new HashMap<>();
-		final Collection<NpcDefinition> definitions = npcManager.getNpcs();
-		final Stream<NpcDefinition> npcDefinitionStream = definitions.parallelStream();
+		log.info("Dumping npc stats to {}", out);
 
-		// Ensure variant names match cache as wiki isn't always correct
-		final Map<Integer, String> nameMap = new HashMap<>();
+		final Metrics metrics = options.getMetrics();
+		final Metrics.Timer lookupTimer = metrics.timer("npc_stats.lookup");
+		final Metrics.Timer pagesTimer = metrics.timer("npc_stats.pages");
+		final Metrics.Timer writeTimer = metrics.timer("npc_stats.write");
+
+		final long started = System.currentTimeMillis();
+		final File jsonFile = new File(out, "npc_stats.json");
+		final File manifestFile = options.getManifestFile("npc_stats");
+		final DumpManifest previous = options.isIncremental() ? DumpManifest.load(manifestFile) : null;
+
+		// Number of pages to dump is known only after the lookup, but fetching them takes most of the run
+		final DumpProgress.Task progress = options.startProgress("npc_stats", 0);
+		long stage = lookupTimer.start();
+		final MediaWikiLookup lookup = previous == null
+			? MediaWikiLookup.build(wiki, INFOBOX_MONSTER.getName(), NpcStatsDumper::parseIds, progress)
+			: MediaWikiLookup.buildIncremental(wiki, INFOBOX_MONSTER.getName(), NpcStatsDumper::parseIds, previous,
+				wiki.getRecentChanges(Instant.ofEpochMilli(previous.getChangesSince())), progress);
+		final Collection<NpcDefinition> definitions = context.getNpcs();
+
+		// Npc ids are dense, so all per npc state is indexed by id
+		final int maxId = context.getMaxNpcId();
+
+		// Id declared on multiple pages resolves to the page lookup resolves it to, then to the first page by title,
+		// and the last variant on a page wins, so the output does not depend on which worker finished first
+		final Comparator<DumpedNpcStats> precedence = Comparator
+			.comparing((DumpedNpcStats d) -> !d.getPage().equals(lookup.getPageTitle(d.getId())))
+			.thenComparing(DumpedNpcStats::getPage)
+			.thenComparing(Comparator.comparingInt(DumpedNpcStats::getOrder).reversed());
+
+		// Variants share the page, so a changed npc makes its whole page dirty
+		final String[] definitionHashes = new String[maxId + 1];
+		final List<Integer> changed = new ArrayList<>();
+		final Set<String> dirtyPages = new HashSet<>();
 		for (NpcDefinition n : definitions)
 		{
-			if (n.getName().equalsIgnoreCase("NULL"))
-			{
-				continue;
-			}
-
-			final String name = Namer
-				.removeTags(n.getName())
-				.replace('\u00A0', ' ')
-				.trim();
+			definitionHashes[n.getId()] = DumpManifest.hash(n.getName(), isAttackableNpc(n));
+			final DumpManifest.Entry entry = previous == null ? null : previous.getEntries().get(n.getId());
 
-			if (name.isEmpty())
+			if (entry == null || !entry.getDefinitionHash().equals(definitionHashes[n.getId()]) || lookup.isChanged(n.getId()))
 			{
-				continue;
+				changed.add(n.getId());
+				final String title = lookup.getPageTitle(n.getId());
+
+				if (title != null)
+				{
+					dirtyPages.add(title);
+				}
 			}
+		}
 
-			nameMap.put(n.getId(), name);
+		if (previous != null)
+		{
+			log.info("{} of {} npcs changed since the previous run", changed.size(), definitions.size());
+			lookup.load(changed);
 		}
 
-		npcDefinitionStream.forEach(n ->
+		lookupTimer.stop(stage);
+
+		// Every page is dumped once, by the lowest attackable npc id that resolves to it
+		final Map<String, Integer> pageOwners = new HashMap<>();
+		for (NpcDefinition n : definitions)
 		{
-			if (npcStats.containsKey(n.getId()))
+			final String title = lookup.getPageTitle(n.getId());
+			if (title != null && context.getNpcName(n.getId()) != null && isAttackableNpc(n) && (previous == null || dirtyPages.contains(title)))
 			{
-				return;
+				pageOwners.merge(title, n.getId(), Math::min);
 			}
+		}
 
-			final String name = nameMap.get(n.getId());
-			if (name == null)
+		// Pages are dumped in parallel, workers never share any state, progress is reported by page owner
+		stage = pagesTimer.start();
+		progress.setTotal(pageOwners.size());
+		final List<List<DumpedNpcStats>> pages = definitions.parallelStream()
+			.filter(n -> Objects.equals(pageOwners.get(lookup.getPageTitle(n.getId())), n.getId()))
+			.map(n -> dumpNpcStats(lookup, context, n, progress))
+			.collect(Collectors.toList());
+		pagesTimer.stop(stage);
+
+		// Stats of clean pages are carried over from the previous output untouched
+		final List<DumpedNpcStats> carried = new ArrayList<>();
+		if (previous != null)
+		{
+			JsonDumpReader.read(jsonFile, NpcStats.class).forEach((id, stats) ->
 			{
-				return;
-			}
+				final DumpManifest.Entry entry = previous.getEntries().get(id);
+
+				if (entry != null && entry.getTitle() != null && !dirtyPages.contains(entry.getTitle()) && !lookup.isChanged(id))
+				{
+					carried.add(new DumpedNpcStats(id, entry.getTitle(), 0, stats));
+				}
+			});
+		}
+
+		// Wiki may declare ids not in cache, so size slots by dumped ids
+		final int maxDumpedId = Stream.concat(pages.stream().flatMap(List::stream), carried.stream())
+			.mapToInt(DumpedNpcStats::getId).max().orElse(-1);
+		final DumpedNpcStats[] slots = new DumpedNpcStats[maxDumpedId + 1];
+		Stream.concat(pages.stream().flatMap(List::stream), carried.stream()).forEachOrdered(d ->
+		{
+			final DumpedNpcStats current = slots[d.getId()];
+			slots[d.getId()] = current == null || precedence.compare(d, current) < 0 ? d : current;
+		});
 
-			if (!isAttackableNpc(n))
+		// Slots are already in id order, so entries are streamed straight to file
+		stage = writeTimer.start();
+		try (JsonDumpWriter writer = JsonDumpWriter.open(jsonFile))
+		{
+			for (int id = 0; id <= maxDumpedId; id++)
 			{
-				return;
+				if (slots[id] != null)
+				{
+					writer.write(id, slots[id].getStats());
+				}
 			}
 
-			final String data = wiki.getSpecialLookupData("npc", n.getId(), 0);
-			if (Strings.isNullOrEmpty(data))
+			writer.commit();
+			log.info("Dumped {} npc stats", writer.getCount());
+		}
+
+		if (options.isBinary())
+		{
+			BinaryTableWriter.write(new File(out, "npc_stats.bin"), NpcStats.class, slots.length, id -> slots[id] == null ? null : slots[id].getStats());
+		}
+
+		writeTimer.stop(stage);
+
+		if (manifestFile != null)
+		{
+			final Map<Integer, DumpManifest.Entry> entries = new HashMap<>();
+
+			if (previous != null)
 			{
-				return;
+				entries.putAll(previous.getEntries());
 			}
 
-			List<MediaWikiTemplate> bases = new ArrayList<>();
-
-			final MediaWikiTemplate switchBase = MediaWikiTemplate.parseWikitext("Switch infobox", data);
-			if (switchBase != null)
+			for (int id : changed)
 			{
-				bases = parseSwitchInfoboxItems("Infobox Monster", switchBase);
+				entries.put(id, lookup.createManifestEntry(lookup.getPageTitle(id), definitionHashes[id]));
 			}
-			else
+
+			// Dumped ids remember the page they came from, ids not in cache have no definition to hash
+			for (List<DumpedNpcStats> page : pages)
 			{
-				final MediaWikiTemplate base = MediaWikiTemplate.parseWikitext("Infobox Monster", data);
-				if (base == null)
+				for (DumpedNpcStats d : page)
 				{
-					return;
+					if (slots[d.getId()] == d)
+					{
+						final String definitionHash = d.getId() <= maxId && definitionHashes[d.getId()] != null ? definitionHashes[d.getId()] : "";
+						entries.put(d.getId(), lookup.createManifestEntry(d.getPage(), definitionHash));
+					}
 				}
+			}
+
+			// Ids of pages that failed to load have no entry, so the next run dumps them again
+			final Set<String> failedPages = pageOwners.keySet().stream()
+				.filter(title -> lookup.getPage(title) == null)
+				.collect(Collectors.toSet());
+			entries.values().removeIf(entry -> failedPages.contains(entry.getTitle()));
 
-				bases.add(base);
+			lookup.updateManifestEntries(entries);
+			new DumpManifest(started, entries).save(manifestFile);
+		}
+	}
+
+	/**
+	 * Builds stats of all monster variants on the page owned by npc
+	 *
+	 * @return stats of every id declared by the variants, in page order
+	 */
+	private static List<DumpedNpcStats> dumpNpcStats(final MediaWikiLookup lookup, final DumpContext context, final NpcDefinition n,
+		final DumpProgress.Task progress)
+	{
+		final String name = context.getNpcName(n.getId());
+		final String title = lookup.getPageTitle(n.getId());
+		final WikiPage page = lookup.getPage(n.getId());
+
+		if (page == null)
+		{
+			progress.failed(n.getId(), "missing " + title);
+			return Collections.emptyList();
+		}
+
+		final List<DumpedNpcStats> dumped = new ArrayList<>();
+		final List<MediaWikiTemplate> bases = parseMonsterTemplates(page);
+
+		for (final MediaWikiTemplate base : bases)
+		{
+			int variantKey = 0;
+			String wikiIdString = getWikiIdString(base, variantKey);
+			if (wikiIdString == null)
+			{
+				// Try again as `id` will be null if there are variants and `id1` is the starting key
+				variantKey++;
+				wikiIdString = getWikiIdString(base, variantKey);
 			}
 
-			for (final MediaWikiTemplate base : bases)
+			while (wikiIdString != null)
 			{
-				int variantKey = 0;
-				String wikiIdString = getWikiIdString(base, variantKey);
-				if (wikiIdString == null)
+				if (wikiIdString.isEmpty())
 				{
-					// Try again as `id` will be null if there are variants and `id1` is the starting key
-					variantKey++;
-					wikiIdString = getWikiIdString(base, variantKey);
+					continue;
 				}
 
-				while (wikiIdString != null)
-				{
-					if (wikiIdString.isEmpty())
-					{
-						continue;
-					}
-
-					final Set<Integer> ids = Arrays.stream(wikiIdString.split(","))
-						.map(s -> Integer.parseInt(s.trim()))
-						.collect(Collectors.toSet());
+				final Set<Integer> ids = Arrays.stream(wikiIdString.split(","))
+					.map(s -> Integer.parseInt(s.trim()))
+					.collect(Collectors.toSet());
 
-					final NpcStats stats = buildNpcStats(base, variantKey);
-					if (!stats.equals(DEFAULT))
+				final NpcStats stats = buildNpcStats(base, variantKey);
+				if (!stats.equals(DEFAULT))
+				{
+					for (final int curID : ids)
 					{
-						stats.setName(name);
-						for (final int curID : ids)
-						{
-							// Update variant name or fall back to current name
-							final String curName = nameMap.get(curID);
-							stats.setName(curName == null ? stats.getName() : curName);
-
-							npcStats.put(curID, stats);
-							log.info("Dumped npc stats for npc id: {}", curID);
-						}
+						// Use cache names of variants as wiki isn't always correct, every id gets its own copy
+						final String curName = context.getNpcName(curID);
+						dumped.add(new DumpedNpcStats(curID, title, dumped.size(), stats.toBuilder().name(curName == null ? name : curName).build()));
 					}
-
-					variantKey++;
-					wikiIdString = getWikiIdString(base, variantKey);
 				}
-			}
-		});
 
-		// Cast to TreeMap so sort output JSON in numerical order (npc id)
-		final Map<Integer, NpcStats> sorted = new TreeMap<>(npcStats);
+				variantKey++;
+				wikiIdString = getWikiIdString(base, variantKey);
+			}
+		}
 
-		try (FileWriter fw = new FileWriter(new File(out, "npc_stats.json")))
+		if (dumped.isEmpty())
+		{
+			progress.skipped(n.getId(), "no stats on " + title);
+		}
+		else
 		{
-			fw.write(App.GSON.toJson(sorted));
+			progress.dumped(n.getId(), title);
 		}
 
-		log.info("Dumped {} npc stats", sorted.size());
+		return dumped;
 	}
 
 	private static boolean isAttackableNpc(final NpcDefinition n)
@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import lombok.Value;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class BinaryTableTest
+{
+	@Value
+	private static class Bonuses
+	{
+		private final Integer astab;
+		private final Boolean twoHanded;
+	}
+
+	@Value
+	private static class Stats
+	{
+		private final String name;
+		private final Double weight;
+		private final Bonuses bonuses;
+	}
+
+	@Test
+	void writeAndRead() throws IOException
+	{
+		final Stats[] stats = new Stats[20];
+		stats[3] = new Stats("Abyssal whip", 0.453, new Bonuses(82, null));
+		stats[17] = new Stats(null, null, null);
+		stats[19] = new Stats("Dragon claws", null, new Bonuses(-4, true));
+
+		final File file = new File(Files.createTempDirectory("dump").toFile(), "stats.bin");
+		assertEquals(3, BinaryTableWriter.write(file, Stats.class, stats.length, id -> stats[id]));
+
+		final BinaryTable table = BinaryTable.open(file);
+		assertEquals(3, table.getRowCount());
+		assertEquals(-1, table.indexOf(4));
+
+		final int name = table.column("name");
+		final int weight = table.column("weight");
+		final int astab = table.column("bonuses.astab");
+		final int twoHanded = table.column("bonuses.twoHanded");
+
+		final int whip = table.indexOf(3);
+		assertEquals("Abyssal whip", table.getString(name, whip));
+		assertEquals(0.453, table.getDouble(weight, whip), 0);
+		assertEquals(82, table.getInt(astab, whip));
+		assertFalse(table.isPresent(twoHanded, whip));
+
+		final int empty = table.indexOf(17);
+		assertNull(table.getString(name, empty));
+		assertFalse(table.isPresent(weight, empty));
+		assertFalse(table.isPresent(astab, empty));
+
+		final int claws = table.indexOf(19);
+		assertEquals("Dragon claws", table.getString(name, claws));
+		assertEquals(-4, table.getInt(astab, claws));
+		assertTrue(table.isPresent(twoHanded, claws));
+		assertTrue(table.getBoolean(twoHanded, claws));
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class DumpJournalTest
+{
+	@Test
+	void resumeCompletedIds() throws IOException
+	{
+		final File file = new File(Files.createTempDirectory("journal").toFile(), "item_stats.journal");
+
+		try (DumpJournal<String> journal = DumpJournal.open(file, String.class))
+		{
+			final Map<Integer, String> values = new HashMap<>();
+			values.put(4151, "Abyssal whip");
+			values.put(4152, null);
+			journal.append(values);
+		}
+
+		// Run killed while writing a line
+		Files.write(file.toPath(), "{\"id\":11802,\"val".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+		try (DumpJournal<String> journal = DumpJournal.open(file, String.class))
+		{
+			assertTrue(journal.isCompleted(4151));
+			assertEquals("Abyssal whip", journal.get(4151));
+			assertTrue(journal.isCompleted(4152));
+			assertNull(journal.get(4152));
+			assertFalse(journal.isCompleted(11802));
+			journal.append(Collections.singletonMap(11802, "Armadyl godsword"));
+		}
+
+		final DumpJournal<String> journal = DumpJournal.open(file, String.class);
+		assertEquals("Armadyl godsword", journal.get(11802));
+		journal.delete();
+		assertFalse(file.exists());
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+
+class DumpManifestTest
+{
+	@Test
+	void saveAndLoad() throws IOException
+	{
+		final File file = new File(Files.createTempDirectory("manifest").toFile(), "npc_stats.manifest.json");
+		final DumpManifest.Entry entry = new DumpManifest.Entry("Goblin", 42, DumpManifest.hash("Goblin", true));
+		final DumpManifest manifest = new DumpManifest(System.currentTimeMillis(), Collections.singletonMap(3029, entry));
+		manifest.save(file);
+
+		assertEquals(manifest, DumpManifest.load(file));
+		assertNull(DumpManifest.load(new File(file.getParentFile(), "missing.manifest.json")));
+	}
+
+	@Test
+	void ignoreOldManifest() throws IOException
+	{
+		final File file = new File(Files.createTempDirectory("manifest").toFile(), "item_stats.manifest.json");
+		new DumpManifest(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(31), Collections.emptyMap()).save(file);
+
+		assertNull(DumpManifest.load(file));
+	}
+
+	@Test
+	void hashSeparatesParts()
+	{
+		assertNotEquals(DumpManifest.hash("ab", "c"), DumpManifest.hash("a", "bc"));
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class DumpPipelineTest
+{
+	@Test
+	void runConcurrently() throws IOException
+	{
+		// Both dumpers wait for each other, so they can only finish when running at the same time
+		final CountDownLatch latch = new CountDownLatch(2);
+		final DumpPipeline.Dumper dumper = (context, wiki, options) ->
+		{
+			latch.countDown();
+
+			try
+			{
+				assertTrue(latch.await(10, TimeUnit.SECONDS));
+			}
+			catch (InterruptedException e)
+			{
+				throw new IOException(e);
+			}
+		};
+
+		new DumpPipeline()
+			.add("first", dumper)
+			.add("second", dumper)
+			.run(null, null, DumpOptions.builder().build());
+	}
+
+	@Test
+	void failureDoesNotStopOthers()
+	{
+		final AtomicBoolean finished = new AtomicBoolean();
+		final IOException e = assertThrows(IOException.class, () -> new DumpPipeline()
+			.add("failing", (context, wiki, options) ->
+			{
+				throw new IOException("failed");
+			})
+			.add("working", (context, wiki, options) -> finished.set(true))
+			.run(null, null, DumpOptions.builder().build()));
+
+		assertEquals("failed", e.getCause().getMessage());
+		assertTrue(finished.get());
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.IntStream;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class DumpProgressTest
+{
+	@Test
+	void countAndTrace() throws IOException
+	{
+		final File trace = new File(Files.createTempDirectory("progress").toFile(), "trace.jsonl");
+		final Metrics metrics = new Metrics();
+		final DumpProgress progress = new DumpProgress(trace);
+		progress.start(metrics);
+
+		final DumpProgress.Task task = progress.task("item_stats", 1000, metrics);
+		IntStream.range(0, 1000).parallel().forEach(id ->
+		{
+			if (id % 10 == 0)
+			{
+				task.skipped(id, "no page");
+			}
+			else
+			{
+				task.dumped(id, "Page " + id);
+			}
+		});
+
+		assertEquals(1000, task.getDone());
+		assertTrue(task.getStatusLine().startsWith("item_stats: 1000/1000 (100.0%)"), task.getStatusLine());
+		progress.close();
+
+		final List<String> lines = Files.readAllLines(trace.toPath(), StandardCharsets.UTF_8);
+		assertEquals(1000, lines.size());
+		assertTrue(lines.stream().anyMatch(line -> line.contains("\"id\":10,\"status\":\"SKIPPED\",\"detail\":\"no page\"")));
+		assertEquals(900, metrics.counter("item_stats.dumped").get());
+		assertEquals(100, metrics.counter("item_stats.skipped").get());
+	}
+
+	@Test
+	void reportFetchingFirst()
+	{
+		final DumpProgress.Task task = new DumpProgress().task("npc_stats", 0, new Metrics());
+		task.fetching(200);
+		task.fetched(50);
+		assertTrue(task.getStatusLine().startsWith("npc_stats: fetched 50/200 pages (25.0%)"), task.getStatusLine());
+
+		task.fetched(150);
+		task.setTotal(10);
+		task.dumped(1, "Goblin");
+		assertTrue(task.getStatusLine().startsWith("npc_stats: 1/10 (10.0%)"), task.getStatusLine());
+	}
+}
@@ -0,0 +1,352 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Builder;
+import lombok.Getter;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Local stand-in for the wiki serving pages of a {@link WikiCorpus}. Understands the subset of api.php and
+ * Special:Lookup used by {@link MediaWiki}, and can add latency, server errors and throttling to every request.
+ */
+public class FakeMediaWiki implements Closeable
+{
+	private static final int EMBEDDED_IN_LIMIT = 500;
+	private static final Gson GSON = new Gson();
+
+	private final WikiCorpus corpus;
+	private final long latencyMillis;
+	private final long latencyJitterMillis;
+	private final double errorRate;
+	private final double requestsPerSecond;
+	private final int failAfterPages;
+	private final MockWebServer server = new MockWebServer();
+
+	@Getter
+	private final AtomicInteger requests = new AtomicInteger();
+	@Getter
+	private final AtomicInteger errors = new AtomicInteger();
+	@Getter
+	private final AtomicInteger throttled = new AtomicInteger();
+
+	/**
+	 * Pages whose content was served
+	 */
+	@Getter
+	private final AtomicInteger pagesServed = new AtomicInteger();
+
+	private long windowStart;
+	private int windowRequests;
+
+	/**
+	 * @param corpus pages to serve
+	 * @param latencyMillis latency added to every request
+	 * @param latencyJitterMillis maximum random latency added on top
+	 * @param errorRate probability of answering with server error
+	 * @param requestsPerSecond requests per second above which requests are throttled, 0 for unlimited
+	 * @param failAfterPages number of pages served before all content requests fail without retry, as if the run died,
+	 * 0 for never
+	 */
+	@Builder
+	private FakeMediaWiki(final WikiCorpus corpus, final long latencyMillis, final long latencyJitterMillis, final double errorRate,
+		final double requestsPerSecond, final int failAfterPages)
+	{
+		this.corpus = corpus;
+		this.latencyMillis = latencyMillis;
+		this.latencyJitterMillis = latencyJitterMillis;
+		this.errorRate = errorRate;
+		this.requestsPerSecond = requestsPerSecond;
+		this.failAfterPages = failAfterPages;
+	}
+
+	public FakeMediaWiki start() throws IOException
+	{
+		server.setDispatcher(new Dispatcher()
+		{
+			@Override
+			public MockResponse dispatch(final RecordedRequest request) throws InterruptedException
+			{
+				return serve(request.getRequestUrl());
+			}
+		});
+		server.start();
+		return this;
+	}
+
+	/**
+	 * @return base url to pass to {@link MediaWiki}
+	 */
+	public String getUrl()
+	{
+		return server.url("/").toString();
+	}
+
+	/**
+	 * Clears all counters
+	 */
+	public void reset()
+	{
+		requests.set(0);
+		errors.set(0);
+		throttled.set(0);
+		pagesServed.set(0);
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		server.shutdown();
+	}
+
+	private MockResponse serve(final HttpUrl url) throws InterruptedException
+	{
+		requests.incrementAndGet();
+
+		if (isThrottled())
+		{
+			throttled.incrementAndGet();
+			return new MockResponse().setResponseCode(429).setHeader("Retry-After", "1");
+		}
+
+		final long jitter = latencyJitterMillis > 0 ? ThreadLocalRandom.current().nextLong(latencyJitterMillis + 1) : 0;
+
+		if (latencyMillis + jitter > 0)
+		{
+			Thread.sleep(latencyMillis + jitter);
+		}
+
+		if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate)
+		{
+			errors.incrementAndGet();
+			return new MockResponse().setResponseCode(500);
+		}
+
+		final List<String> path = url.pathSegments();
+
+		if (path.size() == 2 && path.get(0).equals("w") && path.get(1).equals("Special:Lookup"))
+		{
+			return lookup(url);
+		}
+
+		if (path.size() == 1 && path.get(0).equals("api.php"))
+		{
+			if ("parse".equals(url.queryParameter("action")))
+			{
+				return parse(url);
+			}
+
+			if ("query".equals(url.queryParameter("action")))
+			{
+				return query(url);
+			}
+		}
+
+		return new MockResponse().setResponseCode(404);
+	}
+
+	private synchronized boolean isThrottled()
+	{
+		if (requestsPerSecond <= 0)
+		{
+			return false;
+		}
+
+		final long now = System.nanoTime();
+
+		if (now - windowStart >= TimeUnit.SECONDS.toNanos(1))
+		{
+			windowStart = now;
+			windowRequests = 0;
+		}
+
+		return ++windowRequests > requestsPerSecond;
+	}
+
+	private MockResponse lookup(final HttpUrl url)
+	{
+		final int id = Integer.parseInt(url.queryParameter("id"));
+		final String title = "npc".equals(url.queryParameter("type")) ? corpus.getNpcPage(id) : corpus.getItemPage(id);
+
+		if (title == null)
+		{
+			return new MockResponse().setBody("Lookup failed");
+		}
+
+		return new MockResponse()
+			.setResponseCode(302)
+			.setHeader("Location", server.url("/w/").newBuilder().addPathSegment(title.replace(' ', '_')).build());
+	}
+
+	private MockResponse parse(final HttpUrl url)
+	{
+		final String title = url.queryParameter("page").replace('_', ' ');
+		final String text = corpus.getPage(title);
+
+		if (text == null)
+		{
+			final JsonObject error = new JsonObject();
+			error.addProperty("code", "missingtitle");
+			error.addProperty("info", "The page you specified doesn't exist.");
+			final JsonObject response = new JsonObject();
+			response.add("error", error);
+			return json(response).setHeader("MediaWiki-API-Error", "missingtitle");
+		}
+
+		pagesServed.incrementAndGet();
+		final JsonObject wikitext = new JsonObject();
+		wikitext.addProperty("*", text);
+		final JsonObject parse = new JsonObject();
+		parse.addProperty("title", title);
+		parse.add("wikitext", wikitext);
+		final JsonObject response = new JsonObject();
+		response.add("parse", parse);
+		return json(response);
+	}
+
+	private MockResponse query(final HttpUrl url)
+	{
+		final JsonObject query = new JsonObject();
+		final JsonObject response = new JsonObject();
+		response.addProperty("batchcomplete", "");
+		response.add("query", query);
+
+		if ("embeddedin".equals(url.queryParameter("list")))
+		{
+			final List<String> titles = corpus.getTransclusions(url.queryParameter("eititle").replaceFirst("^Template:", ""));
+			final int offset = url.queryParameter("eicontinue") == null ? 0 : Integer.parseInt(url.queryParameter("eicontinue"));
+			final JsonArray embeddedIn = new JsonArray();
+
+			for (String title : titles.subList(offset, Math.min(titles.size(), offset + EMBEDDED_IN_LIMIT)))
+			{
+				final JsonObject page = new JsonObject();
+				page.addProperty("ns", 0);
+				page.addProperty("title", title);
+				embeddedIn.add(page);
+			}
+
+			query.add("embeddedin", embeddedIn);
+
+			if (offset + EMBEDDED_IN_LIMIT < titles.size())
+			{
+				final JsonObject continuation = new JsonObject();
+				continuation.addProperty("eicontinue", String.valueOf(offset + EMBEDDED_IN_LIMIT));
+				continuation.addProperty("continue", "-||");
+				response.add("continue", continuation);
+			}
+
+			return json(response);
+		}
+
+		if ("recentchanges".equals(url.queryParameter("list")))
+		{
+			// Corpus does not change while served
+			query.add("recentchanges", new JsonArray());
+			return json(response);
+		}
+
+		final String titles = url.queryParameter("titles");
+		final boolean content = "revisions".equals(url.queryParameter("prop"));
+
+		if (content && failAfterPages > 0 && pagesServed.get() >= failAfterPages)
+		{
+			return new MockResponse().setResponseCode(400);
+		}
+
+		final JsonArray normalized = new JsonArray();
+		final JsonObject pages = new JsonObject();
+		int missing = 0;
+
+		for (String requested : titles == null ? Collections.<String>emptyList() : Arrays.asList(titles.split("\\|")))
+		{
+			final String title = requested.replace('_', ' ').trim();
+
+			if (!title.equals(requested))
+			{
+				final JsonObject mapping = new JsonObject();
+				mapping.addProperty("from", requested);
+				mapping.addProperty("to", title);
+				normalized.add(mapping);
+			}
+
+			final String text = corpus.getPage(title);
+			final JsonObject page = new JsonObject();
+			page.addProperty("ns", title.startsWith("Module:") ? 828 : 0);
+			page.addProperty("title", title);
+
+			if (text == null)
+			{
+				page.addProperty("missing", "");
+				pages.add(String.valueOf(--missing), page);
+				continue;
+			}
+
+			final long revision = corpus.getRevision(title);
+			page.addProperty("lastrevid", revision);
+
+			if (content)
+			{
+				pagesServed.incrementAndGet();
+				final JsonObject latest = new JsonObject();
+				latest.addProperty("revid", revision);
+				latest.addProperty("*", text);
+				final JsonArray revisions = new JsonArray();
+				revisions.add(latest);
+				page.add("revisions", revisions);
+			}
+
+			pages.add(String.valueOf(revision), page);
+		}
+
+		if (normalized.size() > 0)
+		{
+			query.add("normalized", normalized);
+		}
+
+		query.add("pages", pages);
+		return json(response);
+	}
+
+	private static MockResponse json(final JsonObject response)
+	{
+		return new MockResponse()
+			.setHeader("Content-Type", "application/json; charset=utf-8")
+			.setBody(GSON.toJson(response));
+	}
+}
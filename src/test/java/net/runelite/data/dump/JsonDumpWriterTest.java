@@ -0,0 +1,78 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import net.runelite.data.App;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+class JsonDumpWriterTest
+{
+	@Test
+	void writeSameAsGson() throws IOException
+	{
+		final Path dir = Files.createTempDirectory("dump");
+		final File file = new File(dir.toFile(), "limits.json");
+		final Map<Integer, Object> expected = new LinkedHashMap<>();
+		expected.put(2, 100);
+		expected.put(10, "Dragon claws \u00e9 <>");
+
+		try (JsonDumpWriter writer = JsonDumpWriter.open(file))
+		{
+			for (Map.Entry<Integer, Object> entry : expected.entrySet())
+			{
+				writer.write(entry.getKey(), entry.getValue());
+			}
+
+			writer.commit();
+		}
+
+		assertEquals(App.GSON.toJson(expected), new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+		assertArrayEquals(new String[]{"limits.json"}, dir.toFile().list());
+	}
+
+	@Test
+	void discardUncommitted() throws IOException
+	{
+		final Path dir = Files.createTempDirectory("dump");
+		final File file = new File(dir.toFile(), "limits.json");
+		Files.write(file.toPath(), "{}".getBytes(StandardCharsets.UTF_8));
+
+		try (JsonDumpWriter writer = JsonDumpWriter.open(file))
+		{
+			writer.write(1, 1);
+		}
+
+		assertEquals("{}", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+		assertArrayEquals(new String[]{"limits.json"}, dir.toFile().list());
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class MediaWikiLookupTest
+{
+	@Test
+	void incrementalFetchesOnlyInfoboxPages()
+	{
+		final Map<String, String> wikitext = ImmutableMap.<String, String>builder()
+			.put("Abyssal whip", "{{Infobox Item|id=4151}}")
+			.put("Dragon dagger", "{{Infobox Item|id=1215}}")
+			.put("Granite maul", "{{Infobox Item|id=4153}}")
+			.put("Rune scimitar", "{{Infobox Item|id=1333}}")
+			.put("Varrock", "{{Infobox Location|members=No}}")
+			.put("Update:Poll", "Some news")
+			.build();
+		final Set<String> fetched = new HashSet<>();
+		final WikiSource wiki = new WikiSource()
+		{
+			@Override
+			public List<String> getTemplateTransclusions(final String template)
+			{
+				return Arrays.asList("Abyssal whip", "Dragon dagger", "Granite maul", "Rune scimitar");
+			}
+
+			@Override
+			public Map<String, Long> getRevisions(final Collection<String> pages)
+			{
+				return pages.stream()
+					.filter(wikitext::containsKey)
+					.collect(Collectors.toMap(t -> t, this::getRevision));
+			}
+
+			@Override
+			public Map<String, MediaWikiCache.Entry> getPages(final Collection<String> pages)
+			{
+				fetched.addAll(pages);
+				return pages.stream()
+					.filter(wikitext::containsKey)
+					.collect(Collectors.toMap(t -> t, t -> new MediaWikiCache.Entry(getRevision(t), wikitext.get(t))));
+			}
+
+			private long getRevision(final String title)
+			{
+				// Scimitar was edited long ago, so it is not listed in recent changes
+				return title.equals("Rune scimitar") ? 2 : 1;
+			}
+
+			@Override
+			public Set<String> getRecentChanges(final Instant since)
+			{
+				return new HashSet<>(wikitext.keySet());
+			}
+		};
+
+		// Whip was dumped before, maul is a new infobox page
+		final DumpManifest previous = new DumpManifest(System.currentTimeMillis(), ImmutableMap.of(
+			4151, new DumpManifest.Entry("Abyssal whip", 1, ""),
+			1215, new DumpManifest.Entry("Dragon dagger", 1, ""),
+			1333, new DumpManifest.Entry("Rune scimitar", 1, ""),
+			995, new DumpManifest.Entry(null, 0, "")));
+		final MediaWikiLookup lookup = MediaWikiLookup.buildIncremental(wiki, "Infobox Item",
+			page -> new ArrayList<>(MediaWikiLookup.parseIds(page.getTemplate("Infobox Item"))),
+			previous, ImmutableSet.of("Abyssal whip", "Granite maul", "Varrock", "Update:Poll"), new DumpProgress().task("item_stats", 0, new Metrics()));
+
+		assertEquals(ImmutableSet.of("Abyssal whip", "Granite maul", "Rune scimitar"), fetched);
+		assertTrue(lookup.isChanged(4151));
+		assertTrue(lookup.isChanged(4153));
+		assertTrue(lookup.isChanged(1333));
+		assertFalse(lookup.isChanged(1215));
+		assertEquals("Dragon dagger", lookup.getPageTitle(1215));
+
+		// Maul is not in cache yet, but remembers its page, ids without page are resolved again next time
+		final Map<Integer, DumpManifest.Entry> entries = new HashMap<>(previous.getEntries());
+		lookup.updateManifestEntries(entries);
+		assertEquals(new DumpManifest.Entry("Granite maul", 1, ""), entries.get(4153));
+		assertEquals(2, entries.get(1333).getRevision());
+		assertFalse(entries.containsKey(995));
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
+import java.io.StringReader;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class MediaWikiResponseTest
+{
+	@Test
+	void readParseWikitext() throws IOException
+	{
+		final String data = "{\"parse\":{\"title\":\"Dragon claws\",\"pageid\":1234," +
+			"\"wikitext\":{\"*\":\"{{Infobox Item|name = Dragon claws}}\"}}}";
+
+		assertEquals("{{Infobox Item|name = Dragon claws}}", MediaWikiResponse.readParseWikitext(new JsonReader(new StringReader(data))));
+	}
+
+	@Test
+	void readParseMissingPage() throws IOException
+	{
+		final String data = "{\"error\":{\"code\":\"missingtitle\",\"info\":\"The page you specified doesn't exist.\"}}";
+
+		assertNull(MediaWikiResponse.readParseWikitext(new JsonReader(new StringReader(data))));
+	}
+
+	@Test
+	void readQueryRevisions() throws IOException
+	{
+		final String data = "{\"continue\":{\"rvcontinue\":\"1235|4567\",\"continue\":\"||\"}," +
+			"\"warnings\":{\"main\":{\"*\":\"Unrecognized parameter\"}}," +
+			"\"query\":{" +
+			"\"normalized\":[{\"from\":\"dragon_claws\",\"to\":\"Dragon claws\"}]," +
+			"\"redirects\":[{\"from\":\"Dragon claws\",\"to\":\"Dragon claws (weapon)\"}]," +
+			"\"pages\":{" +
+			"\"1234\":{\"pageid\":1234,\"ns\":0,\"title\":\"Dragon claws (weapon)\",\"revisions\":[" +
+			"{\"revid\":4567,\"parentid\":4566,\"contentformat\":\"text/x-wiki\",\"contentmodel\":\"wikitext\",\"*\":\"text\"}]}," +
+			"\"-1\":{\"ns\":0,\"title\":\"Missing\",\"missing\":\"\"}}}}";
+
+		final MediaWikiResponse response = MediaWikiResponse.readQuery(new JsonReader(new StringReader(data)));
+		assertTrue(response.hasQuery);
+		assertEquals("1235|4567", response.continuation.get("rvcontinue"));
+		assertEquals("Dragon claws", response.mappings.get("dragon_claws"));
+		assertEquals("Dragon claws (weapon)", response.mappings.get("Dragon claws"));
+		assertEquals(2, response.pages.size());
+
+		final MediaWikiResponse.Page page = response.pages.get(0);
+		assertEquals("Dragon claws (weapon)", page.title);
+		assertEquals(4567, page.revision);
+		assertEquals("text", page.content);
+		assertNull(response.pages.get(1).content);
+	}
+
+	@Test
+	void readQueryEmbeddedIn() throws IOException
+	{
+		final String data = "{\"batchcomplete\":\"\",\"query\":{\"embeddedin\":[" +
+			"{\"pageid\":1,\"ns\":0,\"title\":\"Abyssal demon\"}," +
+			"{\"pageid\":2,\"ns\":0,\"title\":\"Goblin\"}]}}";
+
+		final MediaWikiResponse response = MediaWikiResponse.readQuery(new JsonReader(new StringReader(data)));
+		assertNull(response.continuation);
+		assertEquals(2, response.embeddedIn.size());
+		assertEquals("Goblin", response.embeddedIn.get(1));
+	}
+
+	@Test
+	void readQueryError() throws IOException
+	{
+		final String data = "{\"error\":{\"code\":\"maxlag\",\"info\":\"Waiting for a database server\"}}";
+
+		assertFalse(MediaWikiResponse.readQuery(new JsonReader(new StringReader(data))).hasQuery);
+	}
+}
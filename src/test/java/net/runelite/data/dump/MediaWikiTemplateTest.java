@@ -470,4 +470,61 @@ class MediaWikiTemplateTest
 		final MediaWikiTemplate template2 = MediaWikiTemplate.parseWikitext("Infobox Monster", data);
 		assertNull(template2);
 	}
-}
\ No newline at end of file
+
+	@Test
+	void parseNestedTemplates()
+	{
+		final String data =
+			"{{Infobox Monster\n" +
+				"|name = Ghast\n" +
+				"|examine = {{Plink|Ghast|txt={{!}} invisible}} haunts [[Mort Myre Swamp|the swamp]]\n" +
+				"|combat = 30\n" +
+				"}}";
+
+		final MediaWikiTemplate template = MediaWikiTemplate.parseWikitext("Infobox Monster", data);
+		assertNotNull(template);
+		assertEquals("{{Plink|Ghast|txt={{!}} invisible}} haunts [[Mort Myre Swamp|the swamp]]", template.getValue("examine"));
+		assertEquals(30, (int) template.getInt("combat"));
+		assertNull(template.getValue("txt"));
+	}
+
+	@Test
+	void parseCommentsWithSeparators()
+	{
+		final String data =
+			"{{Infobox Item\n" +
+				"|name = Iron hasta\n" +
+				"|release = <!-- see | talk = page -->\n" +
+				"|weight = 2.267\n" +
+				"}}";
+
+		final MediaWikiTemplate template = MediaWikiTemplate.parseWikitext("Infobox Item", data);
+		assertNotNull(template);
+		assertEquals("Iron hasta", template.getValue("name"));
+		assertNull(template.getValue("talk"));
+		assertEquals(2.267, template.getDouble("weight"), 0);
+	}
+
+	@Test
+	void parseNumbersAndDuplicateKeys()
+	{
+		final String data =
+			"{{Infobox Item\n" +
+				"|weight = 0.45\n" +
+				"|high = +120\n" +
+				"|low = 5kg\n" +
+				"|value = 1\n" +
+				"|value = 2\n" +
+				"|quest = no\n" +
+				"}}";
+
+		final MediaWikiTemplate template = MediaWikiTemplate.parseWikitext("Infobox Item", data);
+		assertNotNull(template);
+		assertEquals(0.45, template.getDouble("weight"), 0);
+		assertEquals(120, (int) template.getInt("high"));
+		assertEquals(5, (int) template.getInt("low"));
+		assertEquals(2, (int) template.getInt("value"));
+		assertNull(template.getBoolean("quest"));
+		assertNull(template.getValue("missing"));
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class MetricsTest
+{
+	@Test
+	void timerQuantiles()
+	{
+		final Metrics.Timer timer = new Metrics().timer("request");
+
+		for (int i = 1; i <= 100; i++)
+		{
+			timer.record(TimeUnit.MILLISECONDS.toNanos(i));
+		}
+
+		assertEquals(100, timer.getCount());
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(100), timer.getMaxNanos());
+
+		// Buckets are about 19% wide, so quantiles are upper bounds within that
+		final long median = timer.getQuantileNanos(0.5);
+		assertTrue(median >= TimeUnit.MILLISECONDS.toNanos(50) && median <= TimeUnit.MILLISECONDS.toNanos(60), "median " + median);
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(100), timer.getQuantileNanos(1));
+	}
+
+	@Test
+	void resetKeepsReferences()
+	{
+		final Metrics metrics = new Metrics();
+		final Metrics.Timer timer = metrics.timer("parse.page");
+		final Metrics.Counter counter = metrics.counter("parse.failures");
+		timer.record(TimeUnit.MILLISECONDS.toNanos(5));
+		counter.increment();
+
+		metrics.reset();
+		assertEquals(0, timer.getCount());
+		assertEquals(0, timer.getQuantileNanos(0.5));
+		assertEquals(0, counter.get());
+
+		timer.record(TimeUnit.MILLISECONDS.toNanos(5));
+		assertEquals(1, metrics.timer("parse.page").getCount());
+	}
+
+	@Test
+	void writeSummaries() throws IOException
+	{
+		final Metrics metrics = new Metrics();
+		metrics.counter("wiki.retries").add(3);
+		metrics.gauge("wiki.inflight", () -> 7);
+		metrics.timer("item_stats.write").record(TimeUnit.SECONDS.toNanos(2));
+
+		final File directory = Files.createTempDirectory("metrics").toFile();
+		metrics.write(new File(directory, "metrics.prom"));
+		metrics.write(new File(directory, "metrics.json"));
+
+		final String prometheus = new String(Files.readAllBytes(new File(directory, "metrics.prom").toPath()), StandardCharsets.UTF_8);
+		assertTrue(prometheus.contains("osrs_data_wiki_retries_total 3\n"));
+		assertTrue(prometheus.contains("osrs_data_wiki_inflight 7\n"));
+		assertTrue(prometheus.contains("osrs_data_item_stats_write_seconds_count 1\n"));
+
+		final String json = new String(Files.readAllBytes(new File(directory, "metrics.json").toPath()), StandardCharsets.UTF_8);
+		assertTrue(json.contains("\"wiki.retries\": 3"));
+		assertTrue(metrics.getStatusLine().contains("wiki.inflight=7"));
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class RequestThrottleTest
+{
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+	private final AtomicLong clock = new AtomicLong();
+	private final RequestThrottle throttle = new RequestThrottle(scheduler, 0, 16, clock::get);
+
+	@AfterEach
+	void shutdown()
+	{
+		scheduler.shutdownNow();
+	}
+
+	@Test
+	void mixedRequestSizesKeepLimit()
+	{
+		// Small listing queries are much faster than content batches of varying size, neither is congestion
+		final Random random = new Random(42);
+
+		for (int i = 0; i < 2000; i++)
+		{
+			request(RequestThrottle.Priority.HIGH, "info", 2);
+			request(RequestThrottle.Priority.NORMAL, "revisions", 20 + random.nextInt(380));
+		}
+
+		assertTrue(throttle.getLimit() >= 8, "limit " + throttle.getLimit());
+	}
+
+	@Test
+	void risingLatencyLowersLimit()
+	{
+		for (int i = 0; i < 500; i++)
+		{
+			request(RequestThrottle.Priority.NORMAL, "revisions", 100);
+		}
+
+		assertTrue(throttle.getLimit() >= 8, "limit " + throttle.getLimit());
+
+		for (int i = 0; i < 50; i++)
+		{
+			request(RequestThrottle.Priority.NORMAL, "revisions", 1000);
+		}
+
+		assertTrue(throttle.getLimit() <= 2, "limit " + throttle.getLimit());
+	}
+
+	private void request(final RequestThrottle.Priority priority, final String kind, final long latencyMillis)
+	{
+		final RequestThrottle.Permit permit = throttle.acquire(priority, kind).join();
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+		permit.success();
+	}
+}
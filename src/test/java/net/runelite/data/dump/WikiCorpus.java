@@ -0,0 +1,301 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import net.runelite.cache.definitions.ItemDefinition;
+import net.runelite.cache.definitions.NpcDefinition;
+
+/**
+ * Wiki pages served by {@link FakeMediaWiki}, from the fixture corpus and optionally generated synthetic pages,
+ * together with cache definitions of all items and npcs declared on them
+ */
+public class WikiCorpus
+{
+	private static final String FIXTURE = "corpus.json";
+	private static final int MAX_VARIANTS_ON_PAGE = 50;
+	private static final int SYNTHETIC_ID_START = 100_000;
+
+	private static final TemplateMatcher INFOBOX_ITEM = TemplateMatcher.of("Infobox Item");
+	private static final TemplateMatcher INFOBOX_MONSTER = TemplateMatcher.of("Infobox Monster");
+
+	private final Map<String, String> pages = new LinkedHashMap<>();
+	private final Map<String, Long> revisions = new HashMap<>();
+	private final Map<Integer, String> itemPages = new HashMap<>();
+	private final Map<Integer, String> npcPages = new HashMap<>();
+	private final Map<Integer, String> itemNames = new HashMap<>();
+	private final Map<Integer, String> npcNames = new HashMap<>();
+	private final Map<String, List<String>> transclusions = new HashMap<>();
+	private long lastRevision;
+
+	/**
+	 * @return corpus of recorded fixture pages
+	 * @throws IOException when fixture can not be read
+	 */
+	public static WikiCorpus load() throws IOException
+	{
+		final WikiCorpus corpus = new WikiCorpus();
+
+		try (InputStream in = WikiCorpus.class.getResourceAsStream(FIXTURE);
+			Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8))
+		{
+			final Map<String, String> fixture = new Gson().fromJson(reader, new TypeToken<LinkedHashMap<String, String>>()
+			{
+			}.getType());
+			fixture.forEach(corpus::add);
+		}
+
+		return corpus;
+	}
+
+	/**
+	 * Adds generated pages modelled after the fixture ones: multi version items with bonuses and exchange
+	 * modules, and monsters with switch infobox variants
+	 * @param count number of generated items and monsters
+	 * @return this corpus
+	 */
+	public WikiCorpus withSynthetic(final int count)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			final int id = SYNTHETIC_ID_START + i * 2;
+			final String item = "Synthetic item " + i;
+
+			add(item, "{{Infobox Item\n"
+				+ "|version1 = Regular\n"
+				+ "|version2 = Ornament\n"
+				+ "|name1 = " + item + "\n"
+				+ "|name2 = " + item + " (or)\n"
+				+ "|image = [[File:" + item + ".png]]\n"
+				+ "|release = [[" + (1 + i % 28) + " March]] [[2019]]\n"
+				+ "|members = Yes\n"
+				+ "|quest = No\n"
+				+ "|tradeable = Yes\n"
+				+ "|equipable = Yes\n"
+				+ "|weight1 = " + (i % 50) / 10.0 + "\n"
+				+ "|weight2 = " + (i % 50 + 1) / 10.0 + "\n"
+				+ "|examine = A generated item for benchmarks.\n"
+				+ "|id1 = " + id + "\n"
+				+ "|id2 = " + (id + 1) + "\n"
+				+ "}}\n"
+				+ "{{Infobox Bonuses\n"
+				+ "|astab = " + i % 90 + "\n"
+				+ "|aslash = " + (i + 7) % 90 + "\n"
+				+ "|acrush = 0\n"
+				+ "|amagic = -" + i % 10 + "\n"
+				+ "|arange = 0\n"
+				+ "|dstab = 0|dslash = 0|dcrush = 0|dmagic = 0|drange = 0\n"
+				+ "|str = " + i % 100 + "\n"
+				+ "|rstr = 0|mdmg = 0\n"
+				+ "|prayer = 0\n"
+				+ "|slot = weapon\n"
+				+ "|aspeed = 4\n"
+				+ "}}\n"
+				+ "The '''" + item + "''' is a [[weapon]] generated for benchmarks.<!-- not a real item -->\n"
+				+ "==Combat styles==\n{{CombatStyles|sword}}\n"
+				+ "==Trivia==\n* It links to [[" + item + " (or)|its ornament]] and [[Synthetic monster " + i + "]].\n");
+
+			add("Module:Exchange/" + item, exchange(id, item, 8 + i % 10000));
+			add("Module:Exchange/" + item + " (or)", exchange(id + 1, item + " (or)", 8 + i % 10000));
+
+			final String monster = "Synthetic monster " + i;
+			final StringBuilder text = new StringBuilder("{{Switch infobox\n");
+
+			for (int variant = 1; variant <= 2; variant++)
+			{
+				text.append("|item").append(variant).append(" =\n")
+					.append("{{Infobox Monster\n")
+					.append("|name = ").append(monster).append('\n')
+					.append("|combat = ").append(variant * (i % 100 + 1)).append('\n')
+					.append("|hitpoints = ").append(variant * (i % 250 + 5)).append('\n')
+					.append("|att = ").append(i % 99).append("|str = ").append(i % 99).append("|def = ").append(i % 99).append('\n')
+					.append("|mage = 1|range = 1\n")
+					.append("|attbns = 0|strbns = 0|amagic = 0|mbns = 0|arange = 0|rngbns = 0\n")
+					.append("|dstab = ").append(i % 50).append("|dslash = 0|dcrush = 0|dmagic = 0|drange = 0\n")
+					.append("|slaylvl = ").append(variant == 2 ? i % 99 : 1).append('\n')
+					.append("|id = ").append(id + variant - 1).append('\n')
+					.append("}}\n")
+					.append("|text").append(variant).append(" = Level ").append(variant * (i % 100 + 1)).append('\n');
+			}
+
+			text.append("}}\n'''").append(monster).append("''' is a generated [[monster]].\n");
+			add(monster, text.toString());
+		}
+
+		return this;
+	}
+
+	/**
+	 * Adds or replaces page, page revision is bumped on every change
+	 */
+	public void add(final String title, final String text)
+	{
+		pages.put(title, text);
+		revisions.put(title, ++lastRevision);
+
+		final WikiPage page = WikiPage.parse(text);
+		index(title, page.getTemplates(INFOBOX_ITEM), itemPages, itemNames);
+		index(title, page.getTemplates(INFOBOX_MONSTER), npcPages, npcNames);
+
+		for (String template : new String[]{"Infobox Item", "Infobox Bonuses", "Infobox Monster", "Switch infobox"})
+		{
+			final List<String> titles = transclusions.computeIfAbsent(TemplateMatcher.normalize(template), k -> new ArrayList<>());
+
+			if (!titles.contains(title) && TemplateMatcher.of(template).find(text, 0) >= 0)
+			{
+				titles.add(title);
+			}
+		}
+	}
+
+	public Map<String, String> getPages()
+	{
+		return Collections.unmodifiableMap(pages);
+	}
+
+	public String getPage(final String title)
+	{
+		return pages.get(title);
+	}
+
+	public long getRevision(final String title)
+	{
+		return revisions.getOrDefault(title, 0L);
+	}
+
+	/**
+	 * @return main namespace pages calling the template
+	 */
+	public List<String> getTransclusions(final String template)
+	{
+		return transclusions.getOrDefault(TemplateMatcher.normalize(template.trim()), Collections.emptyList());
+	}
+
+	public String getItemPage(final int id)
+	{
+		return itemPages.get(id);
+	}
+
+	public String getNpcPage(final int id)
+	{
+		return npcPages.get(id);
+	}
+
+	/**
+	 * @return definitions of all items declared on pages, named by their variant
+	 */
+	public Collection<ItemDefinition> createItems()
+	{
+		final List<ItemDefinition> items = new ArrayList<>();
+		itemNames.forEach((id, name) ->
+		{
+			final ItemDefinition item = new ItemDefinition(id);
+			item.name = name;
+			items.add(item);
+		});
+
+		return items;
+	}
+
+	/**
+	 * @return definitions of all attackable npcs declared on pages, named by their variant
+	 */
+	public Collection<NpcDefinition> createNpcs()
+	{
+		final List<NpcDefinition> npcs = new ArrayList<>();
+		npcNames.forEach((id, name) ->
+		{
+			final NpcDefinition npc = new NpcDefinition(id);
+			npc.name = name;
+			npc.options[1] = "Attack";
+			npcs.add(npc);
+		});
+
+		return npcs;
+	}
+
+	private void index(final String title, final List<MediaWikiTemplate> templates, final Map<Integer, String> ids, final Map<Integer, String> names)
+	{
+		for (MediaWikiTemplate template : templates)
+		{
+			for (int variant = 0; variant <= MAX_VARIANTS_ON_PAGE; variant++)
+			{
+				final String suffix = variant == 0 ? "" : String.valueOf(variant);
+				final String value = template.getValue("id" + suffix);
+
+				if (value == null)
+				{
+					continue;
+				}
+
+				final String name = template.getValue("name" + suffix) != null ? template.getValue("name" + suffix) : template.getValue("name");
+
+				for (String id : value.split(","))
+				{
+					try
+					{
+						final int parsed = Integer.parseInt(id.trim());
+						ids.putIfAbsent(parsed, title);
+						names.putIfAbsent(parsed, name == null ? title : name);
+					}
+					catch (NumberFormatException e)
+					{
+						// Not an id, ex: hist1234
+					}
+				}
+			}
+		}
+	}
+
+	private static String exchange(final int id, final String item, final int limit)
+	{
+		return "return {\n"
+			+ "    itemId     = " + id + ",\n"
+			+ "    price      = " + (id % 1000 * 37) + ",\n"
+			+ "    last       = " + (id % 1000 * 36) + ",\n"
+			+ "    date       = '12:18, November 08, 2018 (UTC)',\n"
+			+ "    lastDate   = '05:43, November 08, 2018 (UTC)',\n"
+			+ "    icon       = '" + item + ".png',\n"
+			+ "    item       = '" + item + "',\n"
+			+ "    value      = " + (id % 1000) + ",\n"
+			+ "    limit      = " + limit + ",\n"
+			+ "    members    = true,\n"
+			+ "    category   = nil,\n"
+			+ "    examine    = 'A generated item for benchmarks.'\n"
+			+ "}\n";
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class WikiPageTest
+{
+	@Test
+	void indexAllTemplates()
+	{
+		final String data =
+			"{{Infobox Item\n" +
+				"|name = Abyssal whip\n" +
+				"|examine = <!-- {{Infobox Bonuses|slot=head}} -->A weapon.\n" +
+				"|equipable = Yes\n" +
+				"}}\n" +
+				"{{Infobox Bonuses\n" +
+				"|slot = weapon\n" +
+				"|aslash = {{Plink|x=82}}\n" +
+				"}}\n" +
+				"{{Infobox Bonuses\n" +
+				"|slot = shield\n" +
+				"}}\n" +
+				"{{Infobox Unterminated\n" +
+				"|slot = ring\n";
+
+		final WikiPage page = WikiPage.parse(data);
+
+		final MediaWikiTemplate item = page.getTemplate("infobox item");
+		assertNotNull(item);
+		assertEquals("Abyssal whip", item.getValue("name"));
+
+		final List<MediaWikiTemplate> bonuses = page.getTemplates("Infobox Bonuses");
+		assertEquals(2, bonuses.size());
+		assertEquals("weapon", bonuses.get(0).getValue("slot"));
+		assertEquals("shield", bonuses.get(1).getValue("slot"));
+		assertEquals("{{Plink|x=82}}", bonuses.get(0).getValue("aslash"));
+
+		final MediaWikiTemplate plink = page.getTemplate("Plink");
+		assertNotNull(plink);
+		assertTrue(bonuses.get(0).contains(plink));
+		assertEquals(1, page.getTemplates(TemplateMatcher.of("Plink"), bonuses.get(0)).size());
+		assertEquals(0, page.getTemplates(TemplateMatcher.of("Plink"), bonuses.get(1)).size());
+
+		assertNull(page.getTemplate("Infobox Unterminated"));
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class XmlDumpSourceTest
+{
+	private static final String EXPORT = "<mediawiki xmlns=\"http://www.mediawiki.org/xml/export-0.10/\" xml:lang=\"en\">\n"
+		+ "<siteinfo><sitename>Old School RuneScape Wiki</sitename></siteinfo>\n"
+		+ page("Abyssal whip", 0, null, 101, "2026-10-01T10:00:00Z", "{{Infobox Item|name=Abyssal whip|id=4151}}\n{{Infobox Bonuses|aslash=82}}")
+		+ page("Whip", 0, "Abyssal whip", 102, "2026-10-01T10:00:00Z", "#REDIRECT [[Abyssal whip]]")
+		+ page("Module:Exchange/Abyssal whip", 828, null, 103, "2026-10-10T10:00:00Z", "return { limit = 70 }")
+		+ page("Goblin", 0, null, 104, "2026-10-12T10:00:00Z", "{{infobox monster|name=Goblin|id=3029}}")
+		+ page("Lumbridge", 0, null, 105, "2026-10-12T10:00:00Z", "{{Infobox Location|name=Lumbridge}}")
+		+ "</mediawiki>\n";
+
+	@Test
+	void readCompressedExport() throws IOException
+	{
+		final File file = new File(Files.createTempDirectory("export").toFile(), "pages-articles.xml.gz");
+
+		try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file.toPath())))
+		{
+			out.write(EXPORT.getBytes(StandardCharsets.UTF_8));
+		}
+
+		final WikiSource source = XmlDumpSource.load(file,
+			Arrays.asList("Infobox Item", "Infobox Bonuses", "Infobox Monster"),
+			Collections.singletonList("Module:Exchange/"));
+
+		assertEquals(Collections.singletonList("Abyssal whip"), source.getTemplateTransclusions("Infobox Item"));
+		assertEquals(Collections.singletonList("Goblin"), source.getTemplateTransclusions("Infobox Monster"));
+
+		final Map<String, MediaWikiCache.Entry> pages = source.getPages(Arrays.asList("Whip", "Module:Exchange/Abyssal_whip", "Lumbridge"));
+		assertEquals(2, pages.size());
+		assertEquals(101, pages.get("Whip").getRevision());
+		assertTrue(pages.get("Whip").getContent().startsWith("{{Infobox Item"));
+		assertEquals("return { limit = 70 }", pages.get("Module:Exchange/Abyssal_whip").getContent());
+
+		assertEquals(Collections.singleton("Goblin"), source.getRecentChanges(Instant.parse("2026-10-11T00:00:00Z")));
+	}
+
+	private static String page(final String title, final int namespace, final String redirect, final long revision, final String timestamp, final String text)
+	{
+		return "<page>\n"
+			+ "<title>" + title + "</title>\n"
+			+ "<ns>" + namespace + "</ns>\n"
+			+ "<id>" + (revision - 100) + "</id>\n"
+			+ (redirect == null ? "" : "<redirect title=\"" + redirect + "\" />\n")
+			+ "<revision>\n"
+			+ "<id>" + revision + "</id>\n"
+			+ "<timestamp>" + timestamp + "</timestamp>\n"
+			+ "<contributor><username>Bot</username><id>7</id></contributor>\n"
+			+ "<text bytes=\"" + text.length() + "\" xml:space=\"preserve\">" + text.replace("&", "&amp;").replace("<", "&lt;") + "</text>\n"
+			+ "</revision>\n"
+			+ "</page>\n";
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump.wiki;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.data.dump.DumpContext;
+import net.runelite.data.dump.DumpOptions;
+import net.runelite.data.dump.DumpPipeline;
+import net.runelite.data.dump.FakeMediaWiki;
+import net.runelite.data.dump.MediaWiki;
+import net.runelite.data.dump.Metrics;
+import net.runelite.data.dump.WikiCorpus;
+
+/**
+ * End to end throughput benchmark of the dumpers against {@link FakeMediaWiki}. Every dumper runs with a fresh
+ * client and without disk cache, then all of them run together.
+ * <p>
+ * Options (all optional): --pages=N synthetic items and monsters, --latency=ms, --jitter=ms, --error-rate=0..1,
+ * --rps=N server side throttling, --client-rps=N client side rate limit
+ */
+@Slf4j
+public class DumpBenchmark
+{
+	public static void main(final String[] args) throws IOException
+	{
+		final Map<String, String> options = new LinkedHashMap<>();
+
+		for (String arg : args)
+		{
+			final int equals = arg.indexOf('=');
+
+			if (arg.startsWith("--") && equals > 0)
+			{
+				options.put(arg.substring(2, equals), arg.substring(equals + 1));
+			}
+		}
+
+		final WikiCorpus corpus = WikiCorpus.load().withSynthetic(Integer.parseInt(options.getOrDefault("pages", "2000")));
+		final DumpContext context = DumpContext.of(corpus.createItems(), corpus.createNpcs());
+		final File out = Files.createTempDirectory("dump-benchmark").toFile();
+		final DumpOptions dumpOptions = DumpOptions.builder()
+			.outputDirectory(out)
+			.build();
+
+		final Map<String, DumpPipeline.Dumper> dumpers = new LinkedHashMap<>();
+		dumpers.put("item limits", ItemLimitsDumper::dump);
+		dumpers.put("item stats", ItemStatsDumper::dump);
+		dumpers.put("npc stats", NpcStatsDumper::dump);
+
+		try (FakeMediaWiki server = FakeMediaWiki.builder()
+			.corpus(corpus)
+			.latencyMillis(Long.parseLong(options.getOrDefault("latency", "20")))
+			.latencyJitterMillis(Long.parseLong(options.getOrDefault("jitter", "30")))
+			.errorRate(Double.parseDouble(options.getOrDefault("error-rate", "0.01")))
+			.requestsPerSecond(Double.parseDouble(options.getOrDefault("rps", "0")))
+			.build()
+			.start())
+		{
+			final double clientRequestsPerSecond = Double.parseDouble(options.getOrDefault("client-rps", "0"));
+			log.info("Serving {} pages, writing dumps to {}", corpus.getPages().size(), out);
+
+			for (Map.Entry<String, DumpPipeline.Dumper> dumper : dumpers.entrySet())
+			{
+				final DumpPipeline pipeline = new DumpPipeline().add(dumper.getKey(), dumper.getValue());
+				run(dumper.getKey(), pipeline, server, context, dumpOptions, clientRequestsPerSecond);
+			}
+
+			final DumpPipeline all = new DumpPipeline();
+			dumpers.forEach(all::add);
+			run("all dumpers", all, server, context, dumpOptions, clientRequestsPerSecond);
+		}
+	}
+
+	private static void run(final String name, final DumpPipeline pipeline, final FakeMediaWiki server, final DumpContext context,
+		final DumpOptions options, final double clientRequestsPerSecond) throws IOException
+	{
+		// Parse metrics are always global, so every run starts from zero
+		final Metrics metrics = Metrics.global();
+		metrics.reset();
+
+		final MediaWiki wiki = MediaWiki.builder()
+			.base(server.getUrl())
+			.metrics(metrics)
+			.maxRequests(32)
+			.maxRequestsPerHost(16)
+			.requestsPerSecond(clientRequestsPerSecond)
+			.build();
+
+		server.reset();
+		final long start = System.nanoTime();
+		pipeline.run(context, wiki, options);
+		final double seconds = (System.nanoTime() - start) / 1e9;
+		final Metrics.Timer fetches = metrics.timer("wiki.fetch");
+
+		log.info("{}: {} pages in {} s, {} pages/s, {} requests, fetch p50 {} ms, p99 {} ms, {} errors, {} throttled",
+			name,
+			server.getPagesServed().get(),
+			String.format("%.2f", seconds),
+			String.format("%.0f", server.getPagesServed().get() / seconds),
+			server.getRequests().get(),
+			String.format("%.1f", fetches.getQuantileNanos(0.5) / 1e6),
+			String.format("%.1f", fetches.getQuantileNanos(0.99) / 1e6),
+			server.getErrors().get(),
+			server.getThrottled().get());
+	}
+}
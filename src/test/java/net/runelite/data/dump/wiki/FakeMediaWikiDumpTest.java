@@ -0,0 +1,156 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Tomas Slusny
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.runelite.data.dump.wiki;
+
+import com.google.gson.JsonObject;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.CompletionException;
+import net.runelite.data.App;
+import net.runelite.data.dump.DumpContext;
+import net.runelite.data.dump.DumpOptions;
+import net.runelite.data.dump.FakeMediaWiki;
+import net.runelite.data.dump.MediaWiki;
+import net.runelite.data.dump.WikiCorpus;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class FakeMediaWikiDumpTest
+{
+	@Test
+	void dumpFixtureCorpus() throws IOException
+	{
+		final WikiCorpus corpus = WikiCorpus.load().withSynthetic(600);
+		final DumpContext context = DumpContext.of(corpus.createItems(), corpus.createNpcs());
+		final File out = Files.createTempDirectory("dump").toFile();
+		final DumpOptions options = DumpOptions.builder().outputDirectory(out).build();
+
+		// Errors and throttling are retried, so the dumps have to be complete anyway
+		try (FakeMediaWiki server = FakeMediaWiki.builder()
+			.corpus(corpus)
+			.errorRate(0.05)
+			.requestsPerSecond(200)
+			.build()
+			.start())
+		{
+			final MediaWiki wiki = MediaWiki.builder().base(server.getUrl()).build();
+			assertTrue(wiki.getSpecialLookupData("item", 4151, -1).contains("Abyssal whip"));
+
+			ItemLimitsDumper.dump(context, wiki, options);
+			ItemStatsDumper.dump(context, wiki, options);
+			NpcStatsDumper.dump(context, wiki, options);
+		}
+
+		final JsonObject limits = read(new File(out, "item_limits.json"));
+		assertEquals(70, limits.get("4151").getAsInt());
+		assertFalse(limits.has("5680"));
+		assertEquals(1200, limits.size() - 3);
+
+		final JsonObject items = read(new File(out, "item_stats.json"));
+		assertEquals(82, items.getAsJsonObject("4151").getAsJsonObject("equipment").get("aslash").getAsInt());
+		assertEquals(40, items.getAsJsonObject("5698").getAsJsonObject("equipment").get("astab").getAsInt());
+
+		final JsonObject npcs = read(new File(out, "npc_stats.json"));
+		assertEquals(5, npcs.getAsJsonObject("3030").get("hitpoints").getAsInt());
+		assertEquals(12, npcs.getAsJsonObject("3031").get("hitpoints").getAsInt());
+		assertEquals(85, npcs.getAsJsonObject("7241").get("slayerLevel").getAsInt());
+	}
+
+	@Test
+	void resumeFromJournal() throws IOException
+	{
+		final WikiCorpus corpus = WikiCorpus.load();
+		final DumpContext context = DumpContext.of(corpus.createItems(), corpus.createNpcs());
+		final File out = Files.createTempDirectory("dump").toFile();
+		final File journal = new File(out, "item_stats.journal");
+		final DumpOptions options = DumpOptions.builder().outputDirectory(out).journalDirectory(out).build();
+
+		// Previous run finished the whip before it died, so its journaled stats are used as they are
+		Files.write(journal.toPath(), "{\"id\":4151,\"value\":{\"weight\":1.0}}\n".getBytes(StandardCharsets.UTF_8));
+
+		try (FakeMediaWiki server = FakeMediaWiki.builder()
+			.corpus(corpus)
+			.build()
+			.start())
+		{
+			ItemStatsDumper.dump(context, MediaWiki.builder().base(server.getUrl()).build(), options);
+		}
+
+		final JsonObject items = read(new File(out, "item_stats.json"));
+		assertEquals(1, items.getAsJsonObject("4151").size());
+		assertEquals(40, items.getAsJsonObject("5698").getAsJsonObject("equipment").get("astab").getAsInt());
+		assertFalse(journal.exists());
+	}
+
+	@Test
+	void resumeFetchFromCache() throws IOException
+	{
+		final WikiCorpus corpus = WikiCorpus.load().withSynthetic(600);
+		final DumpContext context = DumpContext.of(corpus.createItems(), corpus.createNpcs());
+		final File out = Files.createTempDirectory("dump").toFile();
+		final File cache = new File(out, "cache");
+		final DumpOptions options = DumpOptions.builder().outputDirectory(out).journalDirectory(out).build();
+		final int pages = corpus.getTransclusions("Infobox Item").size();
+		final int servedBeforeFailure;
+
+		// Run dies while fetching, nothing is journaled yet, but the fetched pages are already cached
+		try (FakeMediaWiki server = FakeMediaWiki.builder()
+			.corpus(corpus)
+			.failAfterPages(pages / 2)
+			.build()
+			.start())
+		{
+			final MediaWiki wiki = MediaWiki.builder().base(server.getUrl()).cacheDirectory(cache).build();
+			assertThrows(CompletionException.class, () -> ItemStatsDumper.dump(context, wiki, options));
+			servedBeforeFailure = server.getPagesServed().get();
+		}
+
+		try (FakeMediaWiki server = FakeMediaWiki.builder()
+			.corpus(corpus)
+			.build()
+			.start())
+		{
+			ItemStatsDumper.dump(context, MediaWiki.builder().base(server.getUrl()).cacheDirectory(cache).build(), options);
+			assertTrue(servedBeforeFailure >= pages / 2);
+			assertTrue(server.getPagesServed().get() < pages, "fetched again " + server.getPagesServed().get() + " of " + pages);
+		}
+
+		final JsonObject items = read(new File(out, "item_stats.json"));
+		assertEquals(82, items.getAsJsonObject("4151").getAsJsonObject("equipment").get("aslash").getAsInt());
+	}
+
+	private static JsonObject read(final File file) throws IOException
+	{
+		try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))
+		{
+			return App.GSON.fromJson(reader, JsonObject.class);
+		}
+	}
+}
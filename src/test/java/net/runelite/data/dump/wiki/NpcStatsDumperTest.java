@@ -25,6 +25,7 @@ package net.runelite.data.dump.wiki;
 
 import java.util.List;
 import net.runelite.data.dump.MediaWikiTemplate;
+import net.runelite.data.dump.WikiPage;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -102,11 +103,12 @@ class NpcStatsDumperTest
 				"|text5 = Invisible\n" +
 				"}}";
 
-		final MediaWikiTemplate switchInfobox = MediaWikiTemplate.parseWikitext("Switch infobox", data);
+		final WikiPage page = WikiPage.parse(data);
+		final MediaWikiTemplate switchInfobox = page.getTemplate("Switch infobox");
 		assertNotNull(switchInfobox);
 
 		// Infobox monster
-		final List<MediaWikiTemplate> templates = NpcStatsDumper.parseSwitchInfoboxItems("Infobox monster", switchInfobox);
+		final List<MediaWikiTemplate> templates = NpcStatsDumper.parseSwitchInfoboxItems("Infobox monster", page, switchInfobox);
 		assertEquals(templates.size(), 4);
 
 		final MediaWikiTemplate item1 = templates.get(0);
@@ -116,14 +118,14 @@ class NpcStatsDumperTest
 		assertEquals(item2.getInt("combat"), 79);
 
 		// Infobox non-player character
-		final List<MediaWikiTemplate> npcs = NpcStatsDumper.parseSwitchInfoboxItems("Infobox non-player character", switchInfobox);
+		final List<MediaWikiTemplate> npcs = NpcStatsDumper.parseSwitchInfoboxItems("Infobox non-player character", page, switchInfobox);
 		assertEquals(npcs.size(), 1);
 
 		final MediaWikiTemplate npc1 = npcs.get(0);
 		assertEquals(npc1.getValue("race"), "Undead");
 
 		// Infobox item
-		final List<MediaWikiTemplate> items = NpcStatsDumper.parseSwitchInfoboxItems("Infobox item", switchInfobox);
+		final List<MediaWikiTemplate> items = NpcStatsDumper.parseSwitchInfoboxItems("Infobox item", page, switchInfobox);
 		assertEquals(items.size(), 0);
 	}
 }